@@ -0,0 +1,50 @@
+package com.github.ozanaaslan.modularitea.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Entry point of benchmarks.jar. Accepts the usual JMH options (-l, -h and the like are passed
+ * straight to JMH); unless -rf/-rff are given the
+ * results are written as JSON to results/&lt;framework version&gt;.json, so runs of different
+ * releases can be compared side by side (e.g. with jmh.morethan.io).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams()
+                || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+            Main.main(args); // Nothing to run, JMH answers these itself
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+
+        if (!cli.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+        if (!cli.getResult().hasValue()) {
+            File results = new File("results");
+            if (!results.isDirectory() && !results.mkdirs()) System.err.println("Failed to create " + results);
+            options.result(new File(results, version() + ".json").getPath());
+        }
+
+        new Runner(options.build()).run();
+    }
+
+    private static String version() {
+        Properties properties = new Properties();
+        try (InputStream in = BenchmarkRunner.class.getResourceAsStream("/benchmarks.properties")) {
+            if (in != null) properties.load(in);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return properties.getProperty("version", "unknown");
+    }
+}
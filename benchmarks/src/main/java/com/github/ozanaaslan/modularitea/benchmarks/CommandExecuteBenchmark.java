@@ -0,0 +1,55 @@
+package com.github.ozanaaslan.modularitea.benchmarks;
+
+import com.github.ozanaaslan.modularitea.components.CommandManager;
+import com.github.ozanaaslan.modularitea.components.CommandManager.Command;
+import com.github.ozanaaslan.modularitea.components.CommandManager.CommandSender;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CommandManager#execute} on the calling thread: lookup by name and by alias, typed and
+ * trailing String[] arguments, and the unknown-command path. Commands are inline so the numbers
+ * are the dispatch cost, not an executor hand-off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dmodularitea.profile=false")
+public class CommandExecuteBenchmark {
+
+    @Param({"ping", "p", "add 17 25", "sum 17 25", "say hello there world", "unknown"})
+    private String input;
+
+    private CommandManager commands;
+    private final CommandSender sender = new CommandSender() {
+        @Override public void sendMessage(String message) {}
+        @Override public boolean hasPermission(String permission) { return true; }
+    };
+
+    public static class Commands {
+        long total;
+
+        @Command(name = "ping", aliases = {"p", "pong"}, inline = true)
+        public void ping(CommandSender sender) { total++; }
+
+        @Command(name = "add", aliases = {"sum"}, inline = true)
+        public void add(CommandSender sender, int a, int b) { total += a + b; }
+
+        @Command(name = "say", inline = true)
+        public void say(CommandSender sender, String[] words) { total += words.length; }
+    }
+
+    @Setup
+    public void setup() {
+        commands = new CommandManager();
+        commands.register(new Commands());
+    }
+
+    @Benchmark
+    public CommandManager.CommandResult execute() {
+        return commands.execute(sender, input).join();
+    }
+}
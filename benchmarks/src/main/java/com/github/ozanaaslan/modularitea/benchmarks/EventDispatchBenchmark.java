@@ -0,0 +1,82 @@
+package com.github.ozanaaslan.modularitea.benchmarks;
+
+import com.github.ozanaaslan.modularitea.components.EventManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synchronous {@link EventManager#dispatch} with a growing number of listeners, handlers per
+ * listener and depth of the dispatched event's class hierarchy. Each listener has one handler per
+ * level of the hierarchy it handles, so dispatching a deeper event reaches handlers declared for
+ * its supertypes too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dmodularitea.profile=false")
+public class EventDispatchBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int listeners;
+
+    @Param({"1", "4"})
+    private int handlers;
+
+    /** 0: the event class extends Event directly; 3: three event classes between it and Event. */
+    @Param({"0", "3"})
+    private int depth;
+
+    private EventManager events;
+    private EventManager.Event event;
+
+    public static class Depth0 extends EventManager.Event {
+        public long value;
+    }
+    public static class Depth1 extends Depth0 {}
+    public static class Depth2 extends Depth1 {}
+    public static class Depth3 extends Depth2 {}
+
+    public static class SingleHandler {
+        @EventManager.EventBus
+        public void on(Depth0 event) { event.value++; }
+    }
+
+    public static class FourHandlers {
+        @EventManager.EventBus
+        public void on0(Depth0 event) { event.value++; }
+        @EventManager.EventBus
+        public void on1(Depth1 event) { event.value++; }
+        @EventManager.EventBus
+        public void on2(Depth2 event) { event.value++; }
+        @EventManager.EventBus
+        public void on3(Depth3 event) { event.value++; }
+    }
+
+    @Setup
+    public void setup() {
+        events = new EventManager();
+        for (int i = 0; i < listeners; i++) {
+            events.registerInstance(handlers == 1 ? new SingleHandler() : new FourHandlers());
+        }
+        event = depth == 0 ? new Depth0() : new Depth3();
+    }
+
+    @TearDown
+    public void tearDown() {
+        events.shutdown(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public EventManager.Event dispatch() {
+        return events.dispatch(event);
+    }
+
+    /** A fresh event per call, as real callers do. */
+    @Benchmark
+    public EventManager.Event dispatchNew() {
+        return events.dispatch(depth == 0 ? new Depth0() : new Depth3());
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.ozanaaslan.modularitea.benchmarks;
+
+import com.github.ozanaaslan.modularitea.components.ModuleManager;
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link ModuleManager#loadModules} against synthetic module jars generated once per trial: each
+ * module has its own package with a main class and a number of helper classes, and module i
+ * depends on module (i - 1) / 2, so the modules form a binary tree loaded in log2(n) levels.
+ * The main class's constructor touches every helper and one class of its dependency, so class
+ * loading and cross-module delegation are part of the measurement.
+ * <p>
+ * "cold" deletes the module index before every load, "warm" reuses it. Needs a JDK (the jars are
+ * compiled with javax.tools at setup).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 20)
+@Measurement(iterations = 30)
+@Fork(value = 2, jvmArgsAppend = {"-Dmodularitea.profile=false", "-Dmodularitea.config.coalesce=0"})
+public class ModuleLoadBenchmark {
+
+    @Param({"10", "50"})
+    private int modules;
+
+    @Param({"1", "25"})
+    private int classesPerModule;
+
+    @Param({"warm", "cold"})
+    private String index;
+
+    @Param({"true", "false"})
+    private boolean parallel;
+
+    private Path directory;
+    private ModuleManager manager;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) throw new IllegalStateException("ModuleLoadBenchmark must run on a JDK");
+
+        directory = Files.createTempDirectory("modularitea-modules");
+        Path sources = Files.createTempDirectory("modularitea-sources");
+        Path classes = Files.createTempDirectory("modularitea-classes");
+
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < modules; i++) files.addAll(writeSources(sources, i));
+
+        List<String> arguments = new ArrayList<>(Arrays.asList(
+                "-nowarn", "-proc:none",
+                "-classpath", System.getProperty("java.class.path"), "-d", classes.toString()));
+        arguments.addAll(files);
+        if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0)
+            throw new IllegalStateException("Failed to compile the synthetic modules");
+
+        for (int i = 0; i < modules; i++) writeJar(classes, i);
+        delete(sources);
+        delete(classes);
+    }
+
+    private List<String> writeSources(Path sources, int i) throws IOException {
+        String pkg = "synthetic.m" + i;
+        Path dir = Files.createDirectories(sources.resolve("synthetic").resolve("m" + i));
+        List<String> files = new ArrayList<>();
+
+        StringBuilder main = new StringBuilder()
+                .append("package ").append(pkg).append(";\n")
+                .append("public class Main implements ").append(ModuleManager.JavaModule.class.getCanonicalName()).append(" {\n")
+                .append("    public static long sum;\n")
+                .append("    public Main() {\n");
+        for (int k = 0; k < classesPerModule; k++) main.append("        sum += Helper").append(k).append(".value();\n");
+        if (i > 0) main.append("        sum += synthetic.m").append((i - 1) / 2).append(".Helper0.value();\n");
+        main.append("    }\n")
+                .append("    public void primaryEntrypoint() {}\n")
+                .append("    public void secondaryEntrypoint() {}\n")
+                .append("    public void tertiaryEntrypoint() {}\n")
+                .append("}\n");
+        files.add(write(dir.resolve("Main.java"), main.toString()));
+
+        for (int k = 0; k < classesPerModule; k++) {
+            String helper = "package " + pkg + ";\n"
+                    + "public class Helper" + k + " {\n"
+                    + "    private final java.util.List<String> values = new java.util.ArrayList<>();\n"
+                    + "    public static int value() { return new Helper" + k + "().compute(); }\n"
+                    + "    private int compute() { values.add(\"" + pkg + k + "\"); return values.get(0).length() + " + k + "; }\n"
+                    + "}\n";
+            files.add(write(dir.resolve("Helper" + k + ".java"), helper));
+        }
+        return files;
+    }
+
+    private static String write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    private void writeJar(Path classes, int i) throws IOException {
+        Properties manifest = new Properties();
+        manifest.setProperty("name", "m" + i);
+        manifest.setProperty("version", "1.0");
+        manifest.setProperty("author", "bench");
+        manifest.setProperty("main", "synthetic.m" + i + ".Main");
+        if (i > 0) manifest.setProperty("depends", "m" + ((i - 1) / 2));
+
+        Path packageDir = classes.resolve("synthetic").resolve("m" + i);
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(directory.resolve("m" + i + ".jar").toFile()));
+             Stream<Path> entries = Files.list(packageDir)) {
+            jar.putNextEntry(new JarEntry("manifest.properties"));
+            manifest.store(jar, null);
+            jar.closeEntry();
+            for (Path file : (Iterable<Path>) entries.sorted()::iterator) {
+                jar.putNextEntry(new JarEntry("synthetic/m" + i + "/" + file.getFileName()));
+                Files.copy(file, jar);
+                jar.closeEntry();
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() throws IOException {
+        if ("cold".equals(index)) Files.deleteIfExists(directory.resolve(".modules.idx"));
+        manager = new ModuleManager(directory.toFile());
+        manager.setParallel(parallel);
+    }
+
+    @Benchmark
+    public ModuleManager loadModules() {
+        manager.loadModules();
+        return manager;
+    }
+
+    @TearDown(Level.Invocation)
+    public void unload() {
+        manager.shutdown(1, TimeUnit.SECONDS);
+        manager.closeClassLoaders(Collections.emptyList());
+        manager = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        delete(directory);
+    }
+
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.ozanaaslan.modularitea.benchmarks;
+
+import com.github.ozanaaslan.modularitea.components.ServiceManager;
+import com.github.ozanaaslan.modularitea.components.ServiceManager.InjectService;
+import com.github.ozanaaslan.modularitea.components.ServiceManager.ServiceBean;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ServiceManager#inject} into a target with several fields (by name, by type only, through
+ * a Provider) and {@link ServiceManager#registerBeans} of a provider whose bean methods depend on
+ * each other. ServiceManager is a singleton, so re-registering replaces the same bindings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dmodularitea.profile=false")
+public class ServiceInjectBenchmark {
+
+    private final ServiceManager services = ServiceManager.getInstance();
+
+    public interface Repository {}
+    public interface Clock {}
+    public static class MemoryRepository implements Repository {}
+    public static class SystemClock implements Clock {}
+    public static class Cache {
+        final Repository repository;
+        final Clock clock;
+        Cache(Repository repository, Clock clock) {
+            this.repository = repository;
+            this.clock = clock;
+        }
+    }
+    public static class Pricing {
+        final Cache cache;
+        Pricing(Cache cache) { this.cache = cache; }
+    }
+
+    /** Four singletons forming a small DAG: repository, clock -> cache -> pricing. */
+    public static class Beans {
+        @ServiceBean("repository")
+        public Repository repository() { return new MemoryRepository(); }
+
+        @ServiceBean("clock")
+        public Clock clock() { return new SystemClock(); }
+
+        @ServiceBean("cache")
+        public Cache cache(Repository repository, Clock clock) { return new Cache(repository, clock); }
+
+        @ServiceBean("pricing")
+        public Pricing pricing(Cache cache) { return new Pricing(cache); }
+    }
+
+    public static class Target {
+        @InjectService Repository repository;
+        @InjectService Clock clock;
+        @InjectService("cache") Cache cache;
+        @InjectService Pricing unnamed; // No bean called "unnamed": falls back to the type
+        @InjectService("pricing") ServiceManager.Provider<Pricing> pricing;
+    }
+
+    @Setup
+    public void setup() {
+        services.registerBeans(new Beans());
+    }
+
+    @Benchmark
+    public Target inject() {
+        Target target = new Target();
+        services.inject(target);
+        return target;
+    }
+
+    @Benchmark
+    public Pricing lookup() {
+        return services.lookup(Pricing.class, "pricing");
+    }
+
+    @Benchmark
+    public Beans registerBeans() {
+        Beans beans = new Beans();
+        services.registerBeans(beans);
+        return beans;
+    }
+}
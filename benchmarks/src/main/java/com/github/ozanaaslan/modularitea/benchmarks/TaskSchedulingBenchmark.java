@@ -0,0 +1,68 @@
+package com.github.ozanaaslan.modularitea.benchmarks;
+
+import com.github.ozanaaslan.modularitea.components.HashedTimingWheel;
+import com.github.ozanaaslan.modularitea.components.TaskManager;
+import com.github.ozanaaslan.modularitea.components.TaskManager.Task;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduling throughput: arming and cancelling timers on either scheduler backend from several
+ * threads, and registering and unregistering @Task objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Dmodularitea.profile=false")
+public class TaskSchedulingBenchmark {
+
+    @Param({"executor", "wheel"})
+    private String backend;
+
+    private TaskManager.SchedulerBackend scheduler;
+    private final TaskManager tasks = TaskManager.getInstance();
+    private static final Runnable NOTHING = () -> {};
+
+    public static class Ticking {
+        long runs;
+
+        @Task(interval = 1, unit = TimeUnit.HOURS)
+        public void hourly() { runs++; }
+
+        @Task(interval = 5, unit = TimeUnit.MINUTES, overrun = TaskManager.OverrunPolicy.SKIP_IF_RUNNING)
+        public void often() { runs++; }
+    }
+
+    @Setup
+    public void setup() {
+        scheduler = "wheel".equals(backend)
+                ? new HashedTimingWheel(10, TimeUnit.MILLISECONDS, 512)
+                : new TaskManager.ExecutorBackend();
+        tasks.setBackend("wheel".equals(backend)
+                ? new HashedTimingWheel(10, TimeUnit.MILLISECONDS, 512)
+                : new TaskManager.ExecutorBackend());
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdown();
+        tasks.unregisterAll(Ticking.class.getClassLoader());
+        tasks.setBackend(new TaskManager.ExecutorBackend()); // Shuts down the backend set up above
+    }
+
+    /** A timer that never fires: armed and cancelled, like a task being rescheduled. */
+    @Benchmark
+    @Threads(4)
+    public void scheduleAndCancel() {
+        scheduler.schedule(NOTHING, 1, TimeUnit.MINUTES).cancel();
+    }
+
+    @Benchmark
+    public void registerAndUnregister() {
+        tasks.register(new Ticking());
+        tasks.unregisterAll(Ticking.class.getClassLoader());
+    }
+}
@@ -0,0 +1,178 @@
+package com.github.ozanaaslan.modularitea;
+
+import com.github.ozanaaslan.modularitea.components.*;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public abstract class AbstractModulariteaApplication implements IModulariteaEntrypoint {
+
+    @Getter private static CommandManager commandManager;
+    @Getter private static ModuleManager moduleManager;
+    @Getter private static EventManager eventManager;
+    @Getter private static ServiceManager serviceManager;
+    @Getter private static TaskManager taskManager;
+
+    @Getter private static AbstractModulariteaApplication instance;
+
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+
+   /* *//**
+     * The inherited main method.
+     * When someone runs 'java ModApp', this code executes.
+     *//*
+    public static void main(String[] args) {
+        try {
+            // Determine the class name of the class that was actually launched
+            String launchedClassName = System.getProperty("sun.java.command");
+            // If the above fails in certain environments, we can use a helper or force a param
+
+            Class<?> clazz = Class.forName(launchedClassName.split(" ")[0]);
+
+            // Ensure it's actually an app we can run
+            if (AbstractModulariteaApplication.class.isAssignableFrom(clazz)) {
+                AbstractModulariteaApplication app = (AbstractModulariteaApplication) clazz.getDeclaredConstructor().newInstance();
+                app.initialize();
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to bootstrap Modularitea: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+*/
+    public void initialize() {
+        instance = this;
+        System.out.println("--- Booting Modularitea Kernel ---");
+        BootProfiler profiler = BootProfiler.getInstance();
+
+        // 1. Singleton/Manager Setup
+        try (BootProfiler.Span ignored = profiler.span("phase", "boot", "managers")) {
+            serviceManager = ServiceManager.getInstance();
+            commandManager = new CommandManager();
+            eventManager = new EventManager();
+            taskManager = TaskManager.getInstance();
+            moduleManager = new ModuleManager(); // Uses default 'modules' dir
+            commandManager.register(taskManager); // Built-in 'tasks' command
+            commandManager.register(moduleManager); // Built-in 'modules' command
+        }
+
+        // 1b. Stop everything in order when the JVM exits, even if it exits while booting
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "ModulariteaShutdown"));
+
+        // 2. Self-Registration (The App itself can have @Commands, @Tasks, etc)
+        try (BootProfiler.Span ignored = profiler.span("phase", "boot", "intertwine application")) {
+            intertwine(this);
+        }
+
+        // 3. Load External JAR Modules
+        try (BootProfiler.Span ignored = profiler.span("phase", "boot", "load modules")) {
+            moduleManager.loadModules();
+        }
+
+        // 4. Intertwine every loaded Module
+        try (BootProfiler.Span ignored = profiler.span("phase", "boot", "intertwine modules")) {
+            moduleManager.getManifests().forEach(manifest -> intertwine(manifest.getModule().getInstance()));
+        }
+
+        // 5. Fire Lifecycles
+        try (BootProfiler.Span ignored = profiler.span("phase", "boot", "primary entrypoints")) {
+            moduleManager.invokePrimaries();
+        }
+
+        // 5b. Hot reload changed module jars (-Dmodularitea.modules.watch=false to disable)
+        moduleManager.setListener(new ModuleManager.ModuleListener() {
+            @Override
+            public void moduleLoaded(ModuleManager.Manifest manifest) {
+                intertwine(manifest.getModule().getInstance());
+            }
+
+            @Override
+            public void moduleUnloading(ModuleManager.Manifest manifest) {
+                disentangle(manifest.getClassLoader());
+            }
+        });
+        if (Boolean.parseBoolean(System.getProperty("modularitea.modules.watch", "true"))) moduleManager.watch();
+
+        // 6. Hand over control to the Developer's entrypoint
+        try (BootProfiler.Span ignored = profiler.span("phase", "boot", "application entrypoint")) {
+            this.entrypoint(this);
+        }
+
+        // 7. Start the Console
+        try (BootProfiler.Span ignored = profiler.span("phase", "boot", "console")) {
+            commandManager.startListening("Modularitea", false);
+        }
+
+        // 8. Startup report (-Dmodularitea.profile=false to disable)
+        profiler.finish();
+    }
+
+    /**
+     * Stops the console, shuts modules down in reverse dependency order, drains the event pipeline
+     * and the TaskManager, then closes the module class loaders. Everything shares one deadline
+     * (see {@link #getShutdownTimeoutMillis()}). Runs at most once; also invoked by the JVM shutdown hook.
+     */
+    public void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) return;
+        System.out.println("--- Shutting down Modularitea Kernel ---");
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getShutdownTimeoutMillis());
+
+        commandManager.stop();
+        ModuleManager.ShutdownReport report = moduleManager.shutdown(remaining(deadline), TimeUnit.NANOSECONDS);
+        eventManager.shutdown(remaining(deadline), TimeUnit.NANOSECONDS);
+        taskManager.stopAll(remaining(deadline), TimeUnit.NANOSECONDS);
+        moduleManager.closeClassLoaders(report.getMissed());
+
+        if (report.isClean()) System.out.println("All modules stopped.");
+        if (!report.getFailed().isEmpty())
+            System.err.println("Modules that failed to shut down: " + String.join(", ", report.getFailed()));
+        if (!report.getMissed().isEmpty())
+            System.err.println("Modules that missed the shutdown deadline: " + String.join(", ", report.getMissed()));
+    }
+
+    /**
+     * Global shutdown budget, overridable per application or via -Dmodularitea.shutdown.timeout.
+     */
+    protected long getShutdownTimeoutMillis() {
+        return Long.getLong("modularitea.shutdown.timeout", 10_000L);
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * Logic to connect any object to all framework managers automatically.
+     */
+    public void intertwine(Object obj) {
+        BootProfiler profiler = BootProfiler.getInstance();
+        String name = obj.getClass().getSimpleName();
+        try (BootProfiler.Span ignored = profiler.span("intertwine", name, "inject")) {
+            serviceManager.inject(obj);      // Fill @InjectService fields
+        }
+        try (BootProfiler.Span ignored = profiler.span("intertwine", name, "beans")) {
+            serviceManager.registerBeans(obj); // Register factory methods
+        }
+        try (BootProfiler.Span ignored = profiler.span("intertwine", name, "commands")) {
+            commandManager.register(obj);    // Register @Command
+        }
+        try (BootProfiler.Span ignored = profiler.span("intertwine", name, "tasks")) {
+            taskManager.register(obj);       // Register @Task
+        }
+        try (BootProfiler.Span ignored = profiler.span("intertwine", name, "events")) {
+            eventManager.registerInstance(obj); // Register @EventBus
+        }
+    }
+
+    /**
+     * Reverse of {@link #intertwine(Object)} for everything a class loader (i.e. a module) contributed.
+     */
+    public void disentangle(ClassLoader classLoader) {
+        if (classLoader == null) return;
+        commandManager.unregisterAll(classLoader);
+        taskManager.unregisterAll(classLoader);
+        eventManager.unregisterAll(classLoader);
+        serviceManager.unregisterAll(classLoader);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import com.github.ozanaaslan.modularitea.components.CommandManager.ArgumentParser;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Built-in {@link ArgumentParser}s. Every parser validates its input by hand and returns null for
+ * bad tokens instead of relying on NumberFormatException and friends.
+ */
+final class ArgumentParsers {
+
+    private ArgumentParsers() {}
+
+    static void registerDefaults(Map<Class<?>, ArgumentParser<?>> parsers) {
+        parsers.put(String.class, token -> token);
+        parsers.put(int.class, token -> toInt(token, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        parsers.put(Integer.class, parsers.get(int.class));
+        parsers.put(long.class, ArgumentParsers::parseLong);
+        parsers.put(Long.class, parsers.get(long.class));
+        parsers.put(short.class, token -> { Integer v = toInt(token, Short.MIN_VALUE, Short.MAX_VALUE); return v == null ? null : v.shortValue(); });
+        parsers.put(Short.class, parsers.get(short.class));
+        parsers.put(byte.class, token -> { Integer v = toInt(token, Byte.MIN_VALUE, Byte.MAX_VALUE); return v == null ? null : v.byteValue(); });
+        parsers.put(Byte.class, parsers.get(byte.class));
+        parsers.put(double.class, token -> isDecimal(token) ? Double.valueOf(token) : null);
+        parsers.put(Double.class, parsers.get(double.class));
+        parsers.put(float.class, token -> isDecimal(token) ? Float.valueOf(token) : null);
+        parsers.put(Float.class, parsers.get(float.class));
+        parsers.put(boolean.class, ArgumentParsers::parseBoolean);
+        parsers.put(Boolean.class, parsers.get(boolean.class));
+        parsers.put(char.class, token -> token.length() == 1 ? token.charAt(0) : null);
+        parsers.put(Character.class, parsers.get(char.class));
+        parsers.put(UUID.class, token -> isUuid(token) ? UUID.fromString(token) : null);
+        parsers.put(Duration.class, ArgumentParsers::parseDuration);
+    }
+
+    /**
+     * Case-insensitive lookup over the enum's constants, precomputed once per parameter.
+     */
+    static <E extends Enum<E>> ArgumentParser<E> forEnum(Class<E> type) {
+        Map<String, E> constants = new HashMap<>();
+        for (E constant : type.getEnumConstants()) constants.put(constant.name().toLowerCase(), constant);
+        return token -> constants.get(token.toLowerCase());
+    }
+
+    static Long parseLong(String token) {
+        int i = 0, length = token.length();
+        if (length == 0) return null;
+        boolean negative = token.charAt(0) == '-';
+        if (negative || token.charAt(0) == '+') i++;
+        if (i == length) return null;
+
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = token.charAt(i) - '0';
+            if (digit < 0 || digit > 9) return null;
+            // Accumulate negatively so Long.MIN_VALUE is representable
+            if (value < (Long.MIN_VALUE + digit) / 10) return null;
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) return null;
+            value = -value;
+        }
+        return value;
+    }
+
+    private static Integer toInt(String token, int min, int max) {
+        Long value = parseLong(token);
+        return value == null || value < min || value > max ? null : value.intValue();
+    }
+
+    private static boolean isDecimal(String token) {
+        int i = 0, length = token.length();
+        if (i < length && (token.charAt(i) == '-' || token.charAt(i) == '+')) i++;
+        int digits = 0;
+        while (i < length && Character.isDigit(token.charAt(i))) { i++; digits++; }
+        if (i < length && token.charAt(i) == '.') {
+            i++;
+            while (i < length && Character.isDigit(token.charAt(i))) { i++; digits++; }
+        }
+        if (digits == 0) return false;
+        if (i < length && (token.charAt(i) == 'e' || token.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (token.charAt(i) == '-' || token.charAt(i) == '+')) i++;
+            int exponent = 0;
+            while (i < length && Character.isDigit(token.charAt(i))) { i++; exponent++; }
+            if (exponent == 0) return false;
+        }
+        return i == length;
+    }
+
+    private static Boolean parseBoolean(String token) {
+        switch (token.toLowerCase()) {
+            case "true": case "yes": case "on": return Boolean.TRUE;
+            case "false": case "no": case "off": return Boolean.FALSE;
+            default: return null;
+        }
+    }
+
+    private static boolean isUuid(String token) {
+        if (token.length() != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            char c = token.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (Character.digit(c, 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compact durations such as "500ms", "30s", "5m", "1h30m" or "2d"; a bare number means seconds.
+     */
+    static Duration parseDuration(String token) {
+        int length = token.length();
+        if (length == 0) return null;
+
+        Duration total = Duration.ZERO;
+        int i = 0;
+        while (i < length) {
+            long amount = 0;
+            int start = i;
+            while (i < length && Character.isDigit(token.charAt(i))) {
+                if (amount > (Long.MAX_VALUE - 9) / 10) return null;
+                amount = amount * 10 + (token.charAt(i++) - '0');
+            }
+            if (i == start) return null;
+
+            int unitStart = i;
+            while (i < length && Character.isLetter(token.charAt(i))) i++;
+            try {
+                switch (token.substring(unitStart, i).toLowerCase()) {
+                    case "ms": total = total.plusMillis(amount); break;
+                    case "": case "s": total = total.plusSeconds(amount); break;
+                    case "m": total = total.plusMinutes(amount); break;
+                    case "h": total = total.plusHours(amount); break;
+                    case "d": total = total.plusDays(amount); break;
+                    default: return null;
+                }
+            } catch (ArithmeticException e) {
+                return null; // Longer than Duration can hold
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,209 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Records how long each step of booting takes and how much the booting thread allocated in it.
+ * Steps are grouped by category: "phase" for the steps of AbstractModulariteaApplication.initialize,
+ * "module" for a module's jar, class loader, class load, constructor and entrypoints, and
+ * "intertwine" for each manager step of wiring an object in. {@link #finish()} prints a report sorted
+ * by time, optionally writes it as JSON and stops recording.
+ * <p>
+ * -Dmodularitea.profile=false disables recording, -Dmodularitea.profile.file=boot-profile.json
+ * also writes the report to that file (nothing is written by default) and
+ * -Dmodularitea.profile.jfr=true also emits every step as a modularitea.BootStep JFR event.
+ */
+public class BootProfiler {
+
+    @Getter private static final BootProfiler instance = new BootProfiler();
+
+    private static final Span NOOP = () -> {};
+    private static final LongSupplier ALLOCATED = allocationCounter();
+
+    private final Queue<Step> steps = new ConcurrentLinkedQueue<>();
+    private final LongSupplier clock; // System.nanoTime scale
+    private final long start;
+    private final EventRecorder jfr; // Null unless enabled and available
+    private volatile boolean recording;
+
+    private BootProfiler() {
+        this(Boolean.parseBoolean(System.getProperty("modularitea.profile", "true")), System::nanoTime);
+    }
+
+    /**
+     * A separate profiler for tests, timing steps with the given clock.
+     */
+    BootProfiler(boolean recording, LongSupplier clock) {
+        this.clock = clock;
+        this.start = clock.getAsLong();
+        this.recording = recording;
+        this.jfr = recording && Boolean.getBoolean("modularitea.profile.jfr") ? jfrRecorder() : null;
+    }
+
+    /**
+     * A step being timed; close() records it.
+     */
+    @FunctionalInterface
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @Getter
+    public static class Step {
+        private final String category;
+        private final String name;
+        private final String step;
+        private final String thread;
+        private final long startNanos;    // Relative to the profiler's creation
+        private final long durationNanos;
+        private final long allocatedBytes; // -1 when the JVM can't tell
+
+        Step(String category, String name, String step, String thread, long startNanos, long durationNanos, long allocatedBytes) {
+            this.category = category;
+            this.name = name;
+            this.step = step;
+            this.thread = thread;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * Starts timing a step, e.g. {@code span("module", "economy", "constructor")}. Use with
+     * try-with-resources; cheap no-op once recording stopped.
+     */
+    public Span span(String category, String name, String step) {
+        if (!recording) return NOOP;
+        long begin = clock.getAsLong();
+        long allocated = ALLOCATED.getAsLong();
+        Object event = jfr != null ? jfr.begin() : null;
+        return () -> {
+            long end = clock.getAsLong();
+            long bytes = allocated < 0 ? -1 : ALLOCATED.getAsLong() - allocated;
+            steps.add(new Step(category, name, step, Thread.currentThread().getName(), begin - start, end - begin, bytes));
+            if (event != null) jfr.commit(event, category, name, step, bytes);
+        };
+    }
+
+    public List<Step> getSteps() {
+        return new ArrayList<>(steps);
+    }
+
+    /**
+     * Prints the report, writes the JSON file if one is configured and stops recording. Does nothing the second time.
+     */
+    public synchronized void finish() {
+        if (!recording) return;
+        recording = false;
+        long total = clock.getAsLong() - start;
+
+        List<Step> sorted = getSteps();
+        sorted.sort(Comparator.comparingLong(Step::getDurationNanos).reversed());
+        System.out.println(String.format("--- Boot took %.1f ms ---", total / 1e6));
+        for (String category : new String[]{"phase", "module", "intertwine"}) {
+            int shown = 0;
+            for (Step step : sorted) {
+                if (!step.category.equals(category) || shown++ >= 15) continue;
+                System.out.println(String.format("%-10s %8.1f ms %10s  %s %s", category, step.durationNanos / 1e6,
+                        formatBytes(step.allocatedBytes), step.name, step.step));
+            }
+        }
+
+        String file = System.getProperty("modularitea.profile.file", "");
+        if (!file.isEmpty()) write(new File(file), total, sorted);
+    }
+
+    private static void write(File file, long total, List<Step> steps) {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            out.println("{");
+            out.println("  \"totalNanos\": " + total + ",");
+            out.println("  \"steps\": [");
+            for (int i = 0; i < steps.size(); i++) {
+                Step step = steps.get(i);
+                out.print("    {\"category\": " + quote(step.category) + ", \"name\": " + quote(step.name)
+                        + ", \"step\": " + quote(step.step) + ", \"thread\": " + quote(step.thread)
+                        + ", \"startNanos\": " + step.startNanos + ", \"durationNanos\": " + step.durationNanos
+                        + ", \"allocatedBytes\": " + step.allocatedBytes + "}");
+                out.println(i + 1 < steps.size() ? "," : "");
+            }
+            out.println("  ]");
+            out.println("}");
+        } catch (IOException e) {
+            System.err.println("Failed to write boot profile " + file);
+            e.printStackTrace();
+        }
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') quoted.append('\\').append(c);
+            else if (c < 0x20) quoted.append(String.format("\\u%04x", (int) c));
+            else quoted.append(c);
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 0) return "n/a";
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    /**
+     * Per-thread allocated bytes where the JVM offers it (HotSpot's com.sun.management extension).
+     */
+    private static LongSupplier allocationCounter() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                    return () -> threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+        } catch (Throwable ignored) {
+            // Not HotSpot
+        }
+        return () -> -1;
+    }
+
+    /**
+     * Emits steps as events of some recorder, e.g. JFR.
+     */
+    interface EventRecorder {
+        Object begin();
+        void commit(Object started, String category, String name, String step, long allocated);
+    }
+
+    /**
+     * The JFR recorder lives in src/main/jfr, compiled only on JDK 11+ and loaded by name here, so
+     * nothing in the main sources depends on jdk.jfr.
+     */
+    private static EventRecorder jfrRecorder() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            Class<?> recorder = Class.forName(BootProfiler.class.getPackage().getName() + ".JfrBootStep$Recorder");
+            return (EventRecorder) recorder.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("JFR is not available on this JVM or build, boot steps are not emitted as events");
+            return null;
+        }
+    }
+}
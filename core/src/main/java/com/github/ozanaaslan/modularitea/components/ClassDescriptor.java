@@ -0,0 +1,182 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The @Command, @Task, @EventBus, @ServiceBean and @InjectService members of one class, so the
+ * managers can wire an object in without scanning it. {@link DescriptorProcessor} generates one per
+ * class at compile time as {@code <binary class name>$$Descriptor}, with invokers that call the
+ * members directly. Private members have no invoker and are looked up by name; classes without a
+ * descriptor are scanned at runtime into the same member types.
+ * <p>
+ * -Dmodularitea.descriptors=false ignores generated descriptors.
+ */
+public class ClassDescriptor {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("modularitea.descriptors", "true"));
+    private static final String SUFFIX = "$$Descriptor";
+
+    private static final ClassValue<ClassDescriptor> DESCRIPTORS = new ClassValue<ClassDescriptor>() {
+        @Override
+        protected ClassDescriptor computeValue(Class<?> type) {
+            return load(type);
+        }
+    };
+
+    @Getter private final Class<?> type;
+    private final List<CommandMember> commands = new ArrayList<>();
+    private final List<TaskMember> tasks = new ArrayList<>();
+    private final List<EventMember> events = new ArrayList<>();
+    private final List<BeanMember> beans = new ArrayList<>();
+    private final List<InjectMember> injections = new ArrayList<>();
+
+    protected ClassDescriptor(Class<?> type) {
+        this.type = type;
+    }
+
+    protected void add(CommandMember member) { commands.add(member); }
+    protected void add(TaskMember member) { tasks.add(member); }
+    protected void add(EventMember member) { events.add(member); }
+    protected void add(BeanMember member) { beans.add(member); }
+    protected void add(InjectMember member) { injections.add(member); }
+
+    public List<CommandMember> getCommands() { return Collections.unmodifiableList(commands); }
+    public List<TaskMember> getTasks() { return Collections.unmodifiableList(tasks); }
+    /** Includes public handlers inherited from superclasses, like Class.getMethods. */
+    public List<EventMember> getEvents() { return Collections.unmodifiableList(events); }
+    public List<BeanMember> getBeans() { return Collections.unmodifiableList(beans); }
+    public List<InjectMember> getInjections() { return Collections.unmodifiableList(injections); }
+
+    /**
+     * The generated descriptor of the class, or null when it has none. Looked up once per class.
+     */
+    public static ClassDescriptor of(Class<?> type) {
+        return ENABLED ? DESCRIPTORS.get(type) : null;
+    }
+
+    private static ClassDescriptor load(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (loader == null || type.isAnonymousClass() || type.isLocalClass() || type.isSynthetic()) return null;
+        try {
+            Class<?> generated = Class.forName(type.getName() + SUFFIX, true, loader);
+            ClassDescriptor descriptor = (ClassDescriptor) generated.getConstructor().newInstance();
+            return descriptor.type == type ? descriptor : null;
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            System.err.println("Ignoring unusable descriptor of " + type.getName() + ", scanning it instead: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Calls a method, or reads a field when args is null.
+     */
+    @FunctionalInterface
+    public interface Invoker {
+        Object invoke(Object target, Object[] args) throws Throwable;
+    }
+
+    /**
+     * Calls a @Command method with the sender and the parsed arguments (a trailing String[] included).
+     */
+    @FunctionalInterface
+    public interface CommandInvoker {
+        void invoke(Object target, CommandManager.CommandSender sender, Object[] args) throws Throwable;
+    }
+
+    @FunctionalInterface
+    public interface FieldWriter {
+        void set(Object target, Object value) throws Exception;
+    }
+
+    @Getter @Builder
+    public static class CommandMember {
+        private final String method;
+        private final Class<?>[] parameterTypes;
+        private final String name;
+        private final String[] aliases;
+        private final String description;
+        private final String permission;
+        private final boolean inline;
+        private final long timeout;
+        private final CommandInvoker invoker; // Null: look the method up
+    }
+
+    @Getter @Builder
+    public static class TaskMember {
+        private final String method;
+        private final long delay;
+        private final long interval;
+        private final TimeUnit unit;
+        private final boolean async;
+        private final TaskManager.OverrunPolicy overrun;
+        private final boolean spread;
+        private final boolean backoff;
+        private final Invoker invoker; // Null: look the method up
+    }
+
+    @Getter @Builder
+    public static class EventMember {
+        private final String method;
+        private final Class<?> parameterType;
+        private final Class<?> eventType; // Element type for batch handlers
+        private final boolean batch;
+        private final EventManager.EventInvoker invoker; // Null: look the method up
+    }
+
+    @Getter @Builder
+    public static class BeanMember {
+        private final String member;
+        private final boolean field;
+        private final String name;             // Bean name, defaulted to the member name
+        private final Class<?> type;           // Field type or return type
+        private final boolean lazy;
+        private final ServiceManager.Scope scope;
+        private final Class<?>[] parameterTypes;
+        private final String[] qualifiers;     // Per parameter: @InjectService value, null if none
+        private final Invoker invoker;         // Null: look the member up
+    }
+
+    @Getter @Builder
+    public static class InjectMember {
+        private final String field;
+        private final Class<?> beanType;       // Type argument for Provider and Supplier fields
+        private final String name;             // Null: fall back from the field name to the type alone
+        private final boolean provider;
+        private final FieldWriter writer;      // Null: look the field up
+    }
+
+    /**
+     * Reflective stand-ins for members without a generated invoker.
+     */
+    static Invoker reflect(Method method) {
+        method.setAccessible(true);
+        return (target, args) -> {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    static Invoker read(Field field) {
+        field.setAccessible(true);
+        return (target, args) -> field.get(target);
+    }
+
+    static FieldWriter write(Field field) {
+        field.setAccessible(true);
+        return field::set;
+    }
+}
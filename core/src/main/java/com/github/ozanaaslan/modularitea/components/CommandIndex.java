@@ -0,0 +1,134 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import java.util.*;
+
+/**
+ * Immutable, case-insensitive trie over command names and aliases. Lookups walk the characters of
+ * the input in place, so resolving a command name allocates nothing; the same structure answers
+ * prefix completion and bounded edit-distance ("did you mean") queries without scanning every name.
+ */
+final class CommandIndex<V> {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private final Node<V> root;
+
+    private CommandIndex(Node<V> root) {
+        this.root = root;
+    }
+
+    static <V> CommandIndex<V> of(Map<String, V> entries) {
+        Builder<V> builder = new Builder<>();
+        entries.forEach((name, value) -> {
+            Builder<V> node = builder;
+            for (int i = 0; i < name.length(); i++)
+                node = node.children.computeIfAbsent(Character.toLowerCase(name.charAt(i)), c -> new Builder<>());
+            node.name = name;
+            node.value = value;
+        });
+        return new CommandIndex<>(builder.freeze());
+    }
+
+    /**
+     * Resolves the name spanning {@code input[start, end)}.
+     */
+    V get(CharSequence input, int start, int end) {
+        Node<V> node = root;
+        for (int i = start; i < end && node != null; i++)
+            node = node.child(Character.toLowerCase(input.charAt(i)));
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * All names and aliases starting with the prefix, in alphabetical order.
+     */
+    List<String> complete(String prefix) {
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++)
+            node = node.child(Character.toLowerCase(prefix.charAt(i)));
+
+        List<String> out = new ArrayList<>();
+        if (node != null) collect(node, out);
+        return out;
+    }
+
+    private static <V> void collect(Node<V> node, List<String> out) {
+        if (node.name != null) out.add(node.name);
+        for (Node<V> child : node.children) collect(child, out);
+    }
+
+    /**
+     * Names within {@code maxDistance} edits of the input, closest first. Walks the trie with one
+     * Levenshtein row per depth and prunes every branch whose row minimum exceeds the bound.
+     */
+    List<String> suggest(String input, int maxDistance) {
+        String word = input.toLowerCase();
+        int[] firstRow = new int[word.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) firstRow[i] = i;
+
+        List<Map.Entry<String, Integer>> matches = new ArrayList<>();
+        for (int i = 0; i < root.keys.length; i++)
+            suggest(root.children[i], root.keys[i], word, firstRow, maxDistance, matches);
+
+        matches.sort(Map.Entry.comparingByValue());
+        List<String> out = new ArrayList<>(matches.size());
+        for (Map.Entry<String, Integer> match : matches) out.add(match.getKey());
+        return out;
+    }
+
+    private static <V> void suggest(Node<V> node, char key, String word, int[] previous, int maxDistance,
+                                    List<Map.Entry<String, Integer>> matches) {
+        int[] row = new int[previous.length];
+        row[0] = previous[0] + 1;
+        int best = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int cost = word.charAt(i - 1) == key ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+            best = Math.min(best, row[i]);
+        }
+
+        if (node.name != null && row[row.length - 1] <= maxDistance)
+            matches.add(new AbstractMap.SimpleImmutableEntry<>(node.name, row[row.length - 1]));
+        if (best > maxDistance) return;
+
+        for (int i = 0; i < node.keys.length; i++)
+            suggest(node.children[i], node.keys[i], word, row, maxDistance, matches);
+    }
+
+    private static final class Node<V> {
+        private final char[] keys; // Sorted, lower-cased
+        private final Node<V>[] children;
+        private final String name;
+        private final V value;
+
+        Node(char[] keys, Node<V>[] children, String name, V value) {
+            this.keys = keys;
+            this.children = children;
+            this.name = name;
+            this.value = value;
+        }
+
+        Node<V> child(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            return i < 0 ? null : children[i];
+        }
+    }
+
+    private static final class Builder<V> {
+        private final TreeMap<Character, Builder<V>> children = new TreeMap<>();
+        private String name;
+        private V value;
+
+        @SuppressWarnings("unchecked")
+        Node<V> freeze() {
+            char[] keys = children.isEmpty() ? NO_KEYS : new char[children.size()];
+            Node<V>[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder<V>> child : children.entrySet()) {
+                keys[i] = child.getKey();
+                nodes[i++] = child.getValue().freeze();
+            }
+            return new Node<>(keys, nodes, name, value);
+        }
+    }
+}
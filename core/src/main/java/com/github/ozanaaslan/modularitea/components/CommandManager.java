@@ -0,0 +1,533 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.SneakyThrows;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class CommandManager {
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    public @interface Command {
+        String name();
+        String[] aliases() default {}; // Added: Supports multiple names for one command
+        String description() default "No description provided";
+        String permission() default "";
+        /**
+         * Run on the calling thread even when an executor is configured, unless the sender still has
+         * commands running or queued: then it waits its turn on the executor like any other.
+         */
+        boolean inline() default false;
+        /**
+         * Milliseconds before the caller is released with TIMED_OUT; 0 waits indefinitely. The command
+         * itself keeps running, and the sender's next command still waits for it to finish.
+         */
+        long timeout() default 0;
+    }
+
+    public interface CommandSender {
+        void sendMessage(String message);
+        boolean hasPermission(String permission);
+    }
+
+    /**
+     * Converts a single argument token for a typed @Command parameter.
+     */
+    @FunctionalInterface
+    public interface ArgumentParser<T> {
+        /** @return the parsed value, or null when the token is not valid for this type */
+        T parse(String token);
+    }
+
+    public enum Status { COMPLETED, FAILED, TIMED_OUT, UNKNOWN_COMMAND, ACCESS_DENIED, INVALID_ARGUMENTS, EMPTY_INPUT }
+
+    /**
+     * Outcome of a single {@link #execute} call.
+     */
+    @Getter @Builder
+    public static class CommandResult {
+        private final String command;      // Resolved command name, null if it was not found
+        private final Status status;
+        private final long durationNanos;  // Time spent running the command itself
+        private final Throwable error;
+    }
+
+    @Getter @Builder
+    private static class RegisteredCommand {
+        private final String name;
+        private final String description;
+        private final Object instance;
+        private final String permission;
+        private final String usage;
+        // Generated, or compiled at registration with the arguments spread into the method
+        private final ClassDescriptor.CommandInvoker invoker;
+        private final ArgumentParser<?>[] parsers; // One per typed parameter after the sender
+        private final boolean trailingArgs;        // Last parameter is String[] and receives the remaining tokens
+        private final boolean inline;
+        private final long timeout;
+    }
+
+    private static final String[] NO_ARGS = new String[0];
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, CommandSender.class, Object[].class);
+
+    private final Map<String, RegisteredCommand> registry = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ArgumentParser<?>> parsers = new ConcurrentHashMap<>();
+    private volatile CommandIndex<RegisteredCommand> index = CommandIndex.of(registry);
+    private final Scanner scanner = new Scanner(System.in);
+    private volatile boolean running = true;
+
+    private volatile Executor executor;                                   // null: every command runs inline
+    private final Map<CommandSender, SenderLane> lanes = new HashMap<>(); // Guarded by itself
+    private volatile ScheduledExecutorService timeouts;
+    private final List<CommandServer> servers = new CopyOnWriteArrayList<>();
+
+    public CommandManager() {
+        ArgumentParsers.registerDefaults(parsers);
+        // Automatically register the help command for this instance
+        this.register(this);
+    }
+
+    /**
+     * Hands commands to the given executor. Commands of the same sender still run one after another
+     * in submission order, inline ones included; different senders run in parallel. Pass null to
+     * run everything on the calling thread again.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a parser for a custom parameter type. Must happen before commands using it are registered,
+     * since argument binding is compiled at registration.
+     */
+    public <T> void registerParser(Class<T> type, ArgumentParser<? extends T> parser) {
+        parsers.put(type, parser);
+    }
+
+    /**
+     * Optimized Registration: Pre-scans and caches execution strategies. The commands come from the
+     * class's generated {@link ClassDescriptor} when it has one, otherwise from scanning it.
+     */
+    public synchronized void register(Object listener) {
+        ClassDescriptor descriptor = ClassDescriptor.of(listener.getClass());
+        for (ClassDescriptor.CommandMember command : descriptor != null ? descriptor.getCommands() : scan(listener.getClass())) {
+            RegisteredCommand rc;
+            try {
+                rc = compile(command, listener);
+            } catch (IllegalArgumentException | ReflectiveOperationException e) {
+                System.err.println("Skipping command '" + command.getName() + "': " + e.getMessage());
+                continue;
+            }
+
+            // Map the main name and all aliases to the same command object
+            registry.put(rc.getName(), rc);
+            for (String alias : command.getAliases()) {
+                registry.put(alias.toLowerCase(), rc);
+            }
+        }
+        this.index = CommandIndex.of(registry);
+    }
+
+    private static List<ClassDescriptor.CommandMember> scan(Class<?> type) {
+        List<ClassDescriptor.CommandMember> commands = new ArrayList<>();
+        for (Method method : type.getDeclaredMethods()) {
+            Command meta = method.getAnnotation(Command.class);
+            if (meta == null) continue;
+            commands.add(ClassDescriptor.CommandMember.builder()
+                    .method(method.getName())
+                    .parameterTypes(method.getParameterTypes())
+                    .name(meta.name())
+                    .aliases(meta.aliases())
+                    .description(meta.description())
+                    .permission(meta.permission())
+                    .inline(meta.inline())
+                    .timeout(meta.timeout())
+                    .build());
+        }
+        return commands;
+    }
+
+    /**
+     * Removes every command whose instance was defined by the given loader, e.g. a module's classes.
+     * @return true if anything was removed
+     */
+    public synchronized boolean unregisterAll(ClassLoader classLoader) {
+        boolean removed = registry.values().removeIf(rc -> rc.instance.getClass().getClassLoader() == classLoader);
+        if (removed) this.index = CommandIndex.of(registry);
+        return removed;
+    }
+
+    /**
+     * Resolves a parser per parameter and, without a generated invoker, turns the method into a
+     * single spreading MethodHandle, so execution only parses tokens and makes one call.
+     */
+    private RegisteredCommand compile(ClassDescriptor.CommandMember command, Object listener) throws ReflectiveOperationException {
+        Class<?>[] types = command.getParameterTypes();
+        if (types.length == 0 || !CommandSender.class.isAssignableFrom(types[0]))
+            throw new IllegalArgumentException(command.getMethod() + " must take a CommandSender as its first parameter");
+
+        boolean trailingArgs = types.length > 1 && types[types.length - 1] == String[].class;
+        ArgumentParser<?>[] bound = new ArgumentParser<?>[types.length - 1 - (trailingArgs ? 1 : 0)];
+        StringBuilder usage = new StringBuilder(command.getName().toLowerCase());
+        for (int i = 0; i < bound.length; i++) {
+            bound[i] = parserFor(types[i + 1]);
+            if (bound[i] == null)
+                throw new IllegalArgumentException("no ArgumentParser registered for " + types[i + 1].getName());
+            usage.append(" <").append(types[i + 1].getSimpleName().toLowerCase()).append('>');
+        }
+        if (trailingArgs) usage.append(" [args...]");
+
+        ClassDescriptor.CommandInvoker invoker = command.getInvoker();
+        if (invoker == null) invoker = compileInvoker(listener.getClass().getDeclaredMethod(command.getMethod(), types));
+
+        return RegisteredCommand.builder()
+                .name(command.getName().toLowerCase())
+                .description(command.getDescription())
+                .instance(listener)
+                .permission(command.getPermission())
+                .usage(usage.toString())
+                .invoker(invoker)
+                .parsers(bound)
+                .trailingArgs(trailingArgs)
+                .inline(command.isInline())
+                .timeout(command.getTimeout())
+                .build();
+    }
+
+    private static ClassDescriptor.CommandInvoker compileInvoker(Method method) throws IllegalAccessException {
+        method.setAccessible(true); // Do this once, not during execution
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if (Modifier.isStatic(method.getModifiers())) handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        MethodHandle spread = handle.asSpreader(Object[].class, method.getParameterCount() - 1).asType(INVOKER_TYPE);
+        return (target, sender, args) -> {
+            spread.invokeExact(target, sender, args);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ArgumentParser<?> parserFor(Class<?> type) {
+        ArgumentParser<?> parser = parsers.get(type);
+        if (parser == null && type.isEnum()) parser = ArgumentParsers.forEnum((Class<Enum>) type);
+        return parser;
+    }
+
+    /**
+     * High-speed Dispatcher: Minimal logic during the actual call.
+     * The command name is matched in place against the index; arguments are only tokenized
+     * for commands that take them. Lookup, permission and argument errors are reported right away;
+     * the command itself runs inline or on the configured executor (see {@link #setExecutor}).
+     * @return completes with the outcome and how long the command ran
+     */
+    public CompletableFuture<CommandResult> execute(CommandSender sender, String input) {
+        if (input == null) return finished(null, Status.EMPTY_INPUT);
+        int start = skipWhitespace(input, 0);
+        if (start == input.length()) return finished(null, Status.EMPTY_INPUT);
+
+        int end = start;
+        while (end < input.length() && !Character.isWhitespace(input.charAt(end))) end++;
+        RegisteredCommand cmd = index.get(input, start, end);
+
+        if (cmd == null) {
+            List<String> suggestions = index.suggest(input.substring(start, end), 2);
+            sender.sendMessage(suggestions.isEmpty()
+                    ? "Unknown command. Type 'help' for a list of commands."
+                    : "Unknown command. Did you mean '" + suggestions.get(0) + "'? Type 'help' for a list of commands.");
+            return finished(null, Status.UNKNOWN_COMMAND);
+        }
+
+        if (!cmd.getPermission().isEmpty() && !sender.hasPermission(cmd.getPermission())) {
+            sender.sendMessage("Access Denied.");
+            return finished(cmd.getName(), Status.ACCESS_DENIED);
+        }
+
+        Object[] arguments = bind(sender, cmd, input, end);
+        if (arguments == null) return finished(cmd.getName(), Status.INVALID_ARGUMENTS);
+
+        Executor executor = this.executor;
+        if (executor == null) return CompletableFuture.completedFuture(run(sender, cmd, arguments));
+        return submit(executor, sender, cmd, arguments);
+    }
+
+    private static CommandResult run(CommandSender sender, RegisteredCommand cmd, Object[] arguments) {
+        long started = System.nanoTime();
+        try {
+            cmd.getInvoker().invoke(cmd.getInstance(), sender, arguments);
+            return CommandResult.builder().command(cmd.getName()).status(Status.COMPLETED)
+                    .durationNanos(System.nanoTime() - started).build();
+        } catch (Throwable e) {
+            sender.sendMessage("Execution Error: " + e.getMessage());
+            return CommandResult.builder().command(cmd.getName()).status(Status.FAILED)
+                    .durationNanos(System.nanoTime() - started).error(e).build();
+        }
+    }
+
+    private static CompletableFuture<CommandResult> finished(String command, Status status) {
+        return CompletableFuture.completedFuture(CommandResult.builder().command(command).status(status).build());
+    }
+
+    /**
+     * Queues the command on the sender's lane; the lane starts its next command once the previous
+     * one completed, even if the caller was already released by a timeout. An inline command
+     * arriving at an idle lane runs right away on the calling thread, still holding the lane.
+     */
+    private CompletableFuture<CommandResult> submit(Executor executor, CommandSender sender, RegisteredCommand cmd, Object[] arguments) {
+        CompletableFuture<CommandResult> future = new CompletableFuture<>();
+
+        boolean idle;
+        synchronized (lanes) {
+            SenderLane lane = lanes.computeIfAbsent(sender, s -> new SenderLane());
+            idle = !lane.active;
+            lane.active = true;
+            lane.pending.add(new QueuedCommand(idle && cmd.isInline() ? Runnable::run : executor, sender, cmd, arguments, future));
+        }
+        if (idle) startNext(sender);
+        return future;
+    }
+
+    private void startNext(CommandSender sender) {
+        QueuedCommand next;
+        synchronized (lanes) {
+            SenderLane lane = lanes.get(sender);
+            next = lane.pending.poll();
+            if (next == null) {
+                lanes.remove(sender);
+                return;
+            }
+        }
+        next.start();
+    }
+
+    private ScheduledExecutorService timeouts() {
+        ScheduledExecutorService current = this.timeouts;
+        if (current != null) return current;
+        synchronized (lanes) {
+            if (this.timeouts == null) {
+                this.timeouts = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "CommandTimeout");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+            return this.timeouts;
+        }
+    }
+
+    private static class SenderLane {
+        private final Queue<QueuedCommand> pending = new ArrayDeque<>();
+        private boolean active;
+    }
+
+    private class QueuedCommand {
+        private final Executor executor;
+        private final CommandSender sender;
+        private final RegisteredCommand cmd;
+        private final Object[] arguments;
+        private final CompletableFuture<CommandResult> future;
+
+        QueuedCommand(Executor executor, CommandSender sender, RegisteredCommand cmd, Object[] arguments, CompletableFuture<CommandResult> future) {
+            this.executor = executor;
+            this.sender = sender;
+            this.cmd = cmd;
+            this.arguments = arguments;
+            this.future = future;
+        }
+
+        void start() {
+            ScheduledFuture<?> timer = cmd.getTimeout() <= 0 ? null : timeouts().schedule(() -> {
+                if (future.complete(CommandResult.builder().command(cmd.getName()).status(Status.TIMED_OUT)
+                        .durationNanos(TimeUnit.MILLISECONDS.toNanos(cmd.getTimeout())).build())) {
+                    sender.sendMessage("Command '" + cmd.getName() + "' timed out after " + cmd.getTimeout() + "ms.");
+                }
+            }, cmd.getTimeout(), TimeUnit.MILLISECONDS);
+
+            try {
+                executor.execute(() -> {
+                    future.complete(run(sender, cmd, arguments));
+                    if (timer != null) timer.cancel(false);
+                    startNext(sender); // Only now: a timed-out command never overlaps the sender's next one
+                });
+            } catch (RejectedExecutionException e) {
+                if (timer != null) timer.cancel(false);
+                future.complete(CommandResult.builder().command(cmd.getName()).status(Status.FAILED).error(e).build());
+                startNext(sender);
+            }
+        }
+    }
+
+    /**
+     * Parses the tokens after the command name into the method's arguments.
+     * @return the arguments, or null after telling the sender what was wrong
+     */
+    private static Object[] bind(CommandSender sender, RegisteredCommand cmd, String input, int from) {
+        ArgumentParser<?>[] parsers = cmd.getParsers();
+        if (parsers.length == 0 && !cmd.isTrailingArgs()) return NO_ARGS;
+
+        String[] tokens = tokenize(input, from);
+        if (tokens.length < parsers.length || (!cmd.isTrailingArgs() && tokens.length > parsers.length)) {
+            sender.sendMessage("Usage: " + cmd.getUsage());
+            return null;
+        }
+
+        Object[] arguments = new Object[parsers.length + (cmd.isTrailingArgs() ? 1 : 0)];
+        for (int i = 0; i < parsers.length; i++) {
+            Object value = parsers[i].parse(tokens[i]);
+            if (value == null) {
+                sender.sendMessage("Invalid value '" + tokens[i] + "' for argument " + (i + 1) + ". Usage: " + cmd.getUsage());
+                return null;
+            }
+            arguments[i] = value;
+        }
+        if (cmd.isTrailingArgs()) {
+            String[] rest = NO_ARGS;
+            if (parsers.length == 0) {
+                rest = tokens;
+            } else if (tokens.length > parsers.length) {
+                rest = new String[tokens.length - parsers.length];
+                System.arraycopy(tokens, parsers.length, rest, 0, rest.length);
+            }
+            arguments[parsers.length] = rest;
+        }
+        return arguments;
+    }
+
+    /**
+     * Command names and aliases starting with the given prefix, for tab-completion.
+     */
+    public List<String> complete(String prefix) {
+        return index.complete(prefix);
+    }
+
+    /**
+     * Known names within {@code maxDistance} edits of the input, closest first.
+     */
+    public List<String> suggest(String name, int maxDistance) {
+        return index.suggest(name, maxDistance);
+    }
+
+    /**
+     * Splits the input from 'from' on whitespace. Double- or single-quoted sections form a single
+     * argument and a backslash escapes the next character inside quotes. Two passes over the input:
+     * the first counts the arguments so the array is allocated at its final size.
+     */
+    static String[] tokenize(String input, int from) {
+        int count = 0;
+        for (int pos = skipWhitespace(input, from); pos < input.length(); pos = skipWhitespace(input, pos)) {
+            pos = scanToken(input, pos, null);
+            count++;
+        }
+        if (count == 0) return NO_ARGS;
+
+        String[] tokens = new String[count];
+        StringBuilder buffer = new StringBuilder();
+        int i = 0;
+        for (int pos = skipWhitespace(input, from); pos < input.length(); pos = skipWhitespace(input, pos)) {
+            int end = scanToken(input, pos, null);
+            if (needsUnquoting(input, pos, end)) {
+                buffer.setLength(0);
+                scanToken(input, pos, buffer);
+                tokens[i++] = buffer.toString();
+            } else {
+                tokens[i++] = input.substring(pos, end);
+            }
+            pos = end;
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the index just past the token at 'pos', appending its unquoted text to 'out' when given.
+     */
+    private static int scanToken(String input, int pos, StringBuilder out) {
+        char quote = 0;
+        for (; pos < input.length(); pos++) {
+            char c = input.charAt(pos);
+            if (quote == 0) {
+                if (Character.isWhitespace(c)) break;
+                if (c == '"' || c == '\'') { quote = c; continue; }
+            } else if (c == quote) {
+                quote = 0;
+                continue;
+            } else if (c == '\\' && pos + 1 < input.length()) {
+                c = input.charAt(++pos);
+            }
+            if (out != null) out.append(c);
+        }
+        return pos;
+    }
+
+    private static boolean needsUnquoting(String input, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '"' || c == '\'') return true;
+        }
+        return false;
+    }
+
+    private static int skipWhitespace(String input, int pos) {
+        while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) pos++;
+        return pos;
+    }
+
+    /**
+     * Built-in Help Command: Dynamically reads the registry.
+     */
+    @Command(name = "help", aliases = {"?", "h"}, description = "Displays all available commands")
+    private void helpCommand(CommandSender sender) {
+        sender.sendMessage("=== Available Commands ===");
+        // Use a Set to avoid listing aliases as separate commands
+        new HashSet<>(registry.values()).forEach(cmd ->
+                sender.sendMessage("- " + cmd.getName() + ": " + cmd.getDescription())
+        );
+    }
+
+    public void startListening(String prefix, boolean daemon) {
+        Thread thread = new Thread(() -> {
+            Console console = new Console();
+            while (running) {
+                System.out.print(prefix + " > ");
+                if (scanner.hasNextLine()) execute(console, scanner.nextLine()).join();
+                else break;
+            }
+        }, "CommandThread");
+        thread.setDaemon(daemon);
+        thread.start();
+    }
+
+    /**
+     * Starts a remote command server on the loopback interface (port 0 picks a free port).
+     * Servers started here are closed by {@link #stop()}.
+     */
+    @SneakyThrows
+    public CommandServer serve(int port, CommandServer.PermissionResolver resolver) {
+        CommandServer server = new CommandServer(this, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), resolver);
+        servers.add(server);
+        return server;
+    }
+
+    public void stop() {
+        this.running = false;
+        servers.forEach(CommandServer::close);
+        servers.clear();
+        ScheduledExecutorService current = this.timeouts;
+        if (current != null) current.shutdownNow();
+    }
+
+    private static class Console implements CommandSender {
+        public void sendMessage(String msg) { System.out.println(msg); }
+        public boolean hasPermission(String p) { return true; }
+    }
+}
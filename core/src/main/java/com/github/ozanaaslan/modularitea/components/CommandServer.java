@@ -0,0 +1,371 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import com.github.ozanaaslan.modularitea.components.CommandManager.CommandResult;
+import com.github.ozanaaslan.modularitea.components.CommandManager.CommandSender;
+import com.github.ozanaaslan.modularitea.components.CommandManager.Status;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Remote access to a {@link CommandManager} over TCP. One selector thread multiplexes every
+ * connection and a second thread hands decoded requests to {@link CommandManager#execute}, so a
+ * command never runs on the I/O thread.
+ * <p>
+ * Framing, both directions big-endian:
+ * <pre>
+ * request:  int length | UTF-8 command line
+ * response: int length | byte status ({@link Status} ordinal) | UTF-8 output, one message per line
+ * </pre>
+ * Clients may pipeline requests; each connection answers them strictly in order and stops reading
+ * while {@link #MAX_PIPELINED} of them are waiting. Every connection is a single sender, with the
+ * permissions the {@link PermissionResolver} grants its remote address.
+ */
+public class CommandServer implements Closeable {
+
+    public static final int MAX_FRAME = 16 * 1024;
+    /** Requests a connection may have queued or answered but unsent before it stops being read. */
+    public static final int MAX_PIPELINED = 64;
+
+    @FunctionalInterface
+    public interface PermissionResolver {
+        /** Permissions for a new connection; "*" grants everything. */
+        Set<String> permissionsFor(SocketAddress remote);
+    }
+
+    private final CommandManager manager;
+    private final PermissionResolver resolver;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    @Getter private final InetSocketAddress address;
+    private final ExecutorService dispatcher;
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final Thread ioThread;
+    private volatile boolean running = true;
+
+    public CommandServer(CommandManager manager, InetSocketAddress bind, PermissionResolver resolver) throws IOException {
+        this.manager = manager;
+        this.resolver = resolver;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        this.server.bind(bind);
+        this.server.configureBlocking(false);
+        this.server.register(selector, SelectionKey.OP_ACCEPT);
+        this.address = (InetSocketAddress) server.getLocalAddress();
+
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "CommandServer-Dispatch");
+            t.setDaemon(true);
+            return t;
+        });
+        this.ioThread = new Thread(this::loop, "CommandServer");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                selector.select();
+                for (Runnable task; (task = selectorTasks.poll()) != null; ) task.run();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    try {
+                        if (key.isAcceptable()) accept();
+                        else {
+                            Connection connection = (Connection) key.attachment();
+                            if (key.isReadable()) connection.read();
+                            if (key.isValid() && key.isWritable()) connection.write();
+                        }
+                    } catch (IOException e) {
+                        if (key.attachment() != null) ((Connection) key.attachment()).close();
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        Set<String> permissions = resolver.permissionsFor(channel.getRemoteAddress());
+        Connection connection = new Connection(channel, permissions == null ? Collections.emptySet() : permissions);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    private void onSelector(Runnable task) {
+        selectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    @Override
+    public void close() {
+        if (!running) return;
+        running = false;
+        dispatcher.shutdownNow();
+        try {
+            selector.wakeup();
+            ioThread.join(1000);
+            for (SelectionKey key : selector.keys()) key.channel().close();
+            selector.close();
+            server.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Per-connection state; only touched on the selector thread.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(4 + MAX_FRAME);
+        private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(4 + MAX_FRAME);
+        private final byte[] frame = new byte[MAX_FRAME];
+        private final RemoteSender sender;
+        private final Queue<String> requests = new ArrayDeque<>();
+        private final Queue<byte[]> responses = new ArrayDeque<>();
+        private byte[] partial;      // Response currently being copied into writeBuffer
+        private int partialOffset;
+        private boolean busy;
+        private SelectionKey key;
+
+        Connection(SocketChannel channel, Set<String> permissions) {
+            this.channel = channel;
+            this.sender = new RemoteSender(permissions);
+        }
+
+        void read() throws IOException {
+            if (channel.read(readBuffer) < 0) throw new EOFException();
+            decode();
+            dispatchNext();
+        }
+
+        /**
+         * Moves complete frames from readBuffer to the request queue, as long as there is room.
+         */
+        private void decode() throws IOException {
+            ((Buffer) readBuffer).flip(); // Cast: ByteBuffer.flip() does not exist on Java 8
+            try {
+                while (readBuffer.remaining() >= 4 && backlog() < MAX_PIPELINED) {
+                    int length = readBuffer.getInt(readBuffer.position());
+                    if (length < 0 || length > MAX_FRAME) throw new IOException("Frame too large: " + length);
+                    if (readBuffer.remaining() < 4 + length) break;
+                    ((Buffer) readBuffer).position(readBuffer.position() + 4);
+                    readBuffer.get(frame, 0, length);
+                    requests.add(new String(frame, 0, length, StandardCharsets.UTF_8));
+                }
+            } finally {
+                readBuffer.compact();
+            }
+        }
+
+        private int backlog() {
+            return requests.size() + responses.size() + (partial != null ? 1 : 0) + (busy ? 1 : 0);
+        }
+
+        /**
+         * Reads only while the backlog has room, so a client that never reads its responses
+         * can't make the server buffer without limit; writes while anything is left to send.
+         */
+        private void updateInterest() {
+            if (!key.isValid()) return;
+            int ops = backlog() < MAX_PIPELINED ? SelectionKey.OP_READ : 0;
+            if (partial != null || !responses.isEmpty() || writeBuffer.position() > 0) ops |= SelectionKey.OP_WRITE;
+            key.interestOps(ops);
+        }
+
+        private void dispatchNext() {
+            if (!busy) {
+                String line = requests.poll();
+                if (line != null) {
+                    busy = true;
+                    try {
+                        dispatcher.execute(() -> execute(line));
+                    } catch (RuntimeException e) {
+                        complete(null, e);
+                    }
+                }
+            }
+            updateInterest();
+        }
+
+        /**
+         * Runs on the dispatcher; whatever happens, the outcome goes back to the selector thread.
+         */
+        private void execute(String line) {
+            try {
+                manager.execute(sender, line).whenComplete((result, failure) -> onSelector(() -> complete(result, failure)));
+            } catch (Throwable t) {
+                onSelector(() -> complete(null, t));
+            }
+        }
+
+        private void complete(CommandResult result, Throwable failure) {
+            Status status = failure != null || result == null ? Status.FAILED : result.getStatus();
+            if (failure != null) sender.sendMessage("Execution Error: " + failure);
+            byte[] text = sender.takeOutput().getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(text.length, MAX_FRAME - 1);
+
+            byte[] response = new byte[4 + 1 + length];
+            ByteBuffer.wrap(response).putInt(1 + length).put((byte) status.ordinal()).put(text, 0, length);
+            responses.add(response);
+            busy = false;
+            if (!key.isValid()) return;
+
+            try {
+                decode(); // Frames held back while the backlog was full
+            } catch (IOException e) {
+                close();
+                return;
+            }
+            dispatchNext();
+        }
+
+        void write() throws IOException {
+            while (writeBuffer.hasRemaining()) {
+                if (partial == null) {
+                    partial = responses.poll();
+                    partialOffset = 0;
+                    if (partial == null) break;
+                }
+                int chunk = Math.min(writeBuffer.remaining(), partial.length - partialOffset);
+                writeBuffer.put(partial, partialOffset, chunk);
+                partialOffset += chunk;
+                if (partialOffset == partial.length) partial = null;
+            }
+
+            ((Buffer) writeBuffer).flip();
+            channel.write(writeBuffer);
+            writeBuffer.compact();
+            decode();
+            dispatchNext();
+        }
+
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static final class RemoteSender implements CommandSender {
+        private final Set<String> permissions;
+        private final StringBuilder output = new StringBuilder();
+
+        RemoteSender(Set<String> permissions) {
+            this.permissions = permissions;
+        }
+
+        @Override
+        public synchronized void sendMessage(String message) {
+            if (output.length() > 0) output.append('\n');
+            output.append(message);
+        }
+
+        @Override
+        public boolean hasPermission(String permission) {
+            return permissions.contains("*") || permissions.contains(permission);
+        }
+
+        /**
+         * Everything sent since the previous call, i.e. the output of the request being answered.
+         */
+        synchronized String takeOutput() {
+            String text = output.toString();
+            output.setLength(0);
+            return text;
+        }
+    }
+
+    /**
+     * Minimal blocking client speaking the same framing, for tooling and local testing.
+     */
+    public static class Client implements Closeable {
+        private final SocketChannel channel;
+
+        public Client(InetSocketAddress address) throws IOException {
+            this.channel = SocketChannel.open(address);
+        }
+
+        /**
+         * Sends a single command and waits for its response.
+         */
+        public Response send(String command) throws IOException {
+            return pipeline(command).get(0);
+        }
+
+        /**
+         * Writes every command before reading any response; responses come back in the same order.
+         */
+        public List<Response> pipeline(String... commands) throws IOException {
+            for (String command : commands) {
+                byte[] bytes = command.getBytes(StandardCharsets.UTF_8);
+                ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.length);
+                ((Buffer) buffer.putInt(bytes.length).put(bytes)).flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+
+            List<Response> responses = new ArrayList<>(commands.length);
+            for (int i = 0; i < commands.length; i++) {
+                ByteBuffer header = readFully(4);
+                ByteBuffer body = readFully(header.getInt());
+                Status status = Status.values()[body.get()];
+                responses.add(new Response(status, new String(body.array(), 1, body.limit() - 1, StandardCharsets.UTF_8)));
+            }
+            return responses;
+        }
+
+        private ByteBuffer readFully(int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) if (channel.read(buffer) < 0) throw new EOFException();
+            ((Buffer) buffer).flip();
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    @Getter
+    public static class Response {
+        private final Status status;
+        private final String output;
+
+        Response(Status status, String output) {
+            this.status = status;
+            this.output = output;
+        }
+
+        @Override
+        public String toString() {
+            return status + (output.isEmpty() ? "" : ": " + output);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a {@link ClassDescriptor} for every class declaring @Command, @Task, @EventBus,
+ * @ServiceBean or @InjectService members, so the managers don't have to scan it at runtime. Picked
+ * up through META-INF/services wherever the framework jar is on the annotation processor path.
+ * <p>
+ * The generated {@code <binary class name>$$Descriptor} lives in the class's package and calls
+ * members directly; private members are left to reflection. A class whose members mention types
+ * the generated class can't name (private nested types, non-public types of other packages) gets
+ * no descriptor and is scanned as before.
+ */
+public class DescriptorProcessor extends AbstractProcessor {
+
+    private static final String DESCRIPTOR = ClassDescriptor.class.getCanonicalName();
+    private static final String SUFFIX = "$$Descriptor";
+
+    private final Set<String> generated = new HashSet<>();
+    private Elements elements;
+    private Types types;
+
+    /**
+     * Thrown when the generated class would have to name a type it can't access.
+     */
+    private static final class Unnameable extends RuntimeException {
+        Unnameable(String type) {
+            super(type, null, false, false);
+        }
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment env) {
+        super.init(env);
+        this.elements = env.getElementUtils();
+        this.types = env.getTypeUtils();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(Arrays.asList(
+                CommandManager.Command.class.getCanonicalName(),
+                TaskManager.Task.class.getCanonicalName(),
+                EventManager.EventBus.class.getCanonicalName(),
+                ServiceManager.ServiceBean.class.getCanonicalName(),
+                ServiceManager.InjectService.class.getCanonicalName()));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Map<String, TypeElement> owners = new LinkedHashMap<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.METHOD && element.getKind() != ElementKind.FIELD) continue;
+                Element owner = element.getEnclosingElement();
+                if (owner.getKind() != ElementKind.CLASS) continue;
+                TypeElement type = (TypeElement) owner;
+                if (type.getNestingKind() == NestingKind.ANONYMOUS || type.getNestingKind() == NestingKind.LOCAL) continue;
+                owners.putIfAbsent(elements.getBinaryName(type).toString(), type);
+            }
+        }
+        for (Map.Entry<String, TypeElement> owner : owners.entrySet()) {
+            String name = owner.getKey() + SUFFIX;
+            if (generated.add(name)) generate(owner.getValue(), name);
+        }
+        return false; // Other processors (e.g. Lombok) may look at the same annotations
+    }
+
+    private void generate(TypeElement owner, String name) {
+        String pkg = elements.getPackageOf(owner).getQualifiedName().toString();
+        StringBuilder body = new StringBuilder();
+        try {
+            typeName(owner.asType(), pkg);
+            for (ExecutableElement method : ElementFilter.methodsIn(owner.getEnclosedElements())) {
+                describeCommand(owner, method, pkg, body);
+                describeTask(owner, method, pkg, body);
+                describeBeanMethod(owner, method, pkg, body);
+            }
+            for (VariableElement field : ElementFilter.fieldsIn(owner.getEnclosedElements())) {
+                describeBeanField(owner, field, pkg, body);
+                describeInjection(owner, field, pkg, body);
+            }
+            // Like Class.getMethods: public handlers, inherited ones included
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(owner))) {
+                describeEvent(owner, method, pkg, body);
+            }
+        } catch (Unnameable e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "No descriptor for " + owner.getQualifiedName()
+                    + ": " + e.getMessage() + " is not accessible from its package, it will be scanned at runtime", owner);
+            return;
+        }
+
+        String simpleName = pkg.isEmpty() ? name : name.substring(pkg.length() + 1);
+        try (Writer out = processingEnv.getFiler().createSourceFile(name, owner).openWriter()) {
+            if (!pkg.isEmpty()) out.write("package " + pkg + ";\n\n");
+            out.write("// Generated by " + DescriptorProcessor.class.getSimpleName() + " from " + owner.getQualifiedName() + ", do not edit\n");
+            out.write("@SuppressWarnings({\"unchecked\", \"rawtypes\", \"deprecation\"})\n");
+            out.write("public final class " + simpleName + " extends " + DESCRIPTOR + " {\n");
+            out.write("    public " + simpleName + "() {\n");
+            out.write("        super(" + typeName(owner.asType(), pkg) + ".class);\n");
+            out.write(body.toString());
+            out.write("    }\n");
+            out.write("}\n");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write " + name + ": " + e.getMessage(), owner);
+        }
+    }
+
+    private void describeCommand(TypeElement owner, ExecutableElement method, String pkg, StringBuilder body) {
+        CommandManager.Command command = method.getAnnotation(CommandManager.Command.class);
+        if (command == null) return;
+        List<? extends VariableElement> parameters = method.getParameters();
+
+        body.append("        add(").append(DESCRIPTOR).append(".CommandMember.builder()\n");
+        member(body, "method", quote(method.getSimpleName().toString()));
+        member(body, "parameterTypes", classes(parameters, pkg));
+        member(body, "name", quote(command.name()));
+        member(body, "aliases", strings(Arrays.asList(command.aliases())));
+        member(body, "description", quote(command.description()));
+        member(body, "permission", quote(command.permission()));
+        member(body, "inline", String.valueOf(command.inline()));
+        member(body, "timeout", command.timeout() + "L");
+        // Anything but (CommandSender, ...) is rejected at registration, with the same message as for scanned classes
+        TypeMirror sender = elements.getTypeElement(CommandManager.CommandSender.class.getCanonicalName()).asType();
+        if (callable(method) && !parameters.isEmpty() && types.isAssignable(types.erasure(parameters.get(0).asType()), sender)) {
+            StringBuilder call = new StringBuilder(receiver(owner, method, "target", pkg)).append('.')
+                    .append(method.getSimpleName()).append("((").append(typeName(parameters.get(0).asType(), pkg)).append(") sender");
+            for (int i = 1; i < parameters.size(); i++) call.append(", ").append(argument(parameters.get(i), "args[" + (i - 1) + "]", pkg));
+            member(body, "invoker", "(target, sender, args) -> " + call + ")");
+        }
+        body.append("                .build());\n");
+    }
+
+    private void describeTask(TypeElement owner, ExecutableElement method, String pkg, StringBuilder body) {
+        TaskManager.Task task = method.getAnnotation(TaskManager.Task.class);
+        if (task == null) return;
+        if (!method.getParameters().isEmpty()) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Task method must not take parameters, it will not be scheduled", method);
+            return;
+        }
+
+        body.append("        add(").append(DESCRIPTOR).append(".TaskMember.builder()\n");
+        member(body, "method", quote(method.getSimpleName().toString()));
+        member(body, "delay", task.delay() + "L");
+        member(body, "interval", task.interval() + "L");
+        member(body, "unit", "java.util.concurrent.TimeUnit." + task.unit().name());
+        member(body, "async", String.valueOf(task.async()));
+        member(body, "overrun", TaskManager.OverrunPolicy.class.getCanonicalName() + "." + task.overrun().name());
+        member(body, "spread", String.valueOf(task.spread()));
+        member(body, "backoff", String.valueOf(task.backoff()));
+        if (callable(method)) {
+            member(body, "invoker", "(target, args) -> { " + receiver(owner, method, "target", pkg) + "." + method.getSimpleName() + "(); return null; }");
+        }
+        body.append("                .build());\n");
+    }
+
+    private void describeEvent(TypeElement owner, ExecutableElement method, String pkg, StringBuilder body) {
+        EventManager.EventBus handler = method.getAnnotation(EventManager.EventBus.class);
+        if (handler == null || !method.getModifiers().contains(Modifier.PUBLIC) || method.getParameters().size() != 1) return;
+        TypeMirror parameter = method.getParameters().get(0).asType();
+
+        String eventType;
+        if (!handler.batch()) {
+            eventType = typeName(parameter, pkg);
+        } else if (types.isAssignable(types.erasure(elements.getTypeElement(List.class.getName()).asType()), types.erasure(parameter))) {
+            eventType = batchElementType(parameter, pkg);
+        } else {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@EventBus(batch = true) handler must take a List parameter", method);
+            return;
+        }
+
+        body.append("        add(").append(DESCRIPTOR).append(".EventMember.builder()\n");
+        member(body, "method", quote(method.getSimpleName().toString()));
+        member(body, "parameterType", typeName(parameter, pkg) + ".class");
+        member(body, "eventType", eventType + ".class");
+        member(body, "batch", String.valueOf(handler.batch()));
+        member(body, "invoker", "(listener, payload) -> " + receiver(owner, method, "listener", pkg) + "." + method.getSimpleName()
+                + "((" + typeName(parameter, pkg) + ") payload)");
+        body.append("                .build());\n");
+    }
+
+    /**
+     * E of a {@code List<E>} or {@code List<? extends E>} parameter, Event otherwise.
+     */
+    private String batchElementType(TypeMirror parameter, String pkg) {
+        if (parameter.getKind() == TypeKind.DECLARED && !((DeclaredType) parameter).getTypeArguments().isEmpty()) {
+            TypeMirror element = ((DeclaredType) parameter).getTypeArguments().get(0);
+            if (element.getKind() == TypeKind.WILDCARD) {
+                TypeMirror bound = ((WildcardType) element).getExtendsBound();
+                element = bound != null ? bound : elements.getTypeElement(Object.class.getName()).asType();
+            }
+            if (element.getKind() == TypeKind.DECLARED) return typeName(element, pkg);
+        }
+        return EventManager.Event.class.getCanonicalName();
+    }
+
+    private void describeBeanField(TypeElement owner, VariableElement field, String pkg, StringBuilder body) {
+        ServiceManager.ServiceBean bean = field.getAnnotation(ServiceManager.ServiceBean.class);
+        if (bean == null) return;
+
+        body.append("        add(").append(DESCRIPTOR).append(".BeanMember.builder()\n");
+        member(body, "member", quote(field.getSimpleName().toString()));
+        member(body, "field", "true");
+        member(body, "name", quote(bean.value().isEmpty() ? field.getSimpleName().toString() : bean.value()));
+        member(body, "type", typeName(field.asType(), pkg) + ".class");
+        member(body, "scope", ServiceManager.Scope.class.getCanonicalName() + ".SINGLETON");
+        member(body, "parameterTypes", "new java.lang.Class<?>[0]");
+        member(body, "qualifiers", "new java.lang.String[0]");
+        if (callable(field)) {
+            member(body, "invoker", "(target, args) -> " + receiver(owner, field, "target", pkg) + "." + field.getSimpleName());
+        }
+        body.append("                .build());\n");
+    }
+
+    private void describeBeanMethod(TypeElement owner, ExecutableElement method, String pkg, StringBuilder body) {
+        ServiceManager.ServiceBean bean = method.getAnnotation(ServiceManager.ServiceBean.class);
+        if (bean == null) return;
+        List<? extends VariableElement> parameters = method.getParameters();
+
+        List<String> qualifiers = new ArrayList<>();
+        for (VariableElement parameter : parameters) {
+            ServiceManager.InjectService inject = parameter.getAnnotation(ServiceManager.InjectService.class);
+            qualifiers.add(inject != null && !inject.value().isEmpty() ? inject.value() : null); // Same rule as ServiceManager.scanBeans
+        }
+
+        body.append("        add(").append(DESCRIPTOR).append(".BeanMember.builder()\n");
+        member(body, "member", quote(method.getSimpleName().toString()));
+        member(body, "name", quote(bean.value().isEmpty() ? method.getSimpleName().toString() : bean.value()));
+        member(body, "type", typeName(method.getReturnType(), pkg) + ".class");
+        member(body, "lazy", String.valueOf(bean.lazy()));
+        member(body, "scope", ServiceManager.Scope.class.getCanonicalName() + "." + bean.scope().name());
+        member(body, "parameterTypes", classes(parameters, pkg));
+        member(body, "qualifiers", strings(qualifiers));
+        if (callable(method)) {
+            StringBuilder call = new StringBuilder(receiver(owner, method, "target", pkg)).append('.').append(method.getSimpleName()).append('(');
+            for (int i = 0; i < parameters.size(); i++) {
+                if (i > 0) call.append(", ");
+                call.append(argument(parameters.get(i), "args[" + i + "]", pkg));
+            }
+            call.append(')');
+            member(body, "invoker", method.getReturnType().getKind() == TypeKind.VOID
+                    ? "(target, args) -> { " + call + "; return null; }"
+                    : "(target, args) -> " + call);
+        }
+        body.append("                .build());\n");
+    }
+
+    private void describeInjection(TypeElement owner, VariableElement field, String pkg, StringBuilder body) {
+        ServiceManager.InjectService inject = field.getAnnotation(ServiceManager.InjectService.class);
+        if (inject == null) return;
+
+        TypeMirror type = types.erasure(field.asType());
+        boolean provider = isType(type, ServiceManager.Provider.class.getCanonicalName()) || isType(type, "java.util.function.Supplier");
+        TypeMirror beanType = field.asType();
+        if (provider) {
+            List<? extends TypeMirror> arguments = ((DeclaredType) field.asType()).getTypeArguments();
+            beanType = arguments.size() == 1 ? arguments.get(0) : null;
+            if (beanType == null || beanType.getKind() != TypeKind.DECLARED) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Cannot inject: provider type argument must be a class", field);
+                return;
+            }
+        }
+
+        body.append("        add(").append(DESCRIPTOR).append(".InjectMember.builder()\n");
+        member(body, "field", quote(field.getSimpleName().toString()));
+        member(body, "beanType", typeName(beanType, pkg) + ".class");
+        if (!inject.value().isEmpty()) member(body, "name", quote(inject.value()));
+        member(body, "provider", String.valueOf(provider));
+        if (callable(field) && !field.getModifiers().contains(Modifier.FINAL)) {
+            member(body, "writer", "(target, value) -> " + receiver(owner, field, "target", pkg) + "." + field.getSimpleName()
+                    + " = (" + typeName(field.asType(), pkg) + ") value");
+        }
+        body.append("                .build());\n");
+    }
+
+    private static void member(StringBuilder body, String name, String value) {
+        body.append("                .").append(name).append('(').append(value).append(")\n");
+    }
+
+    private boolean isType(TypeMirror type, String name) {
+        return type.getKind() == TypeKind.DECLARED && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(name);
+    }
+
+    /**
+     * Private members are looked up reflectively at runtime; everything else is reachable from the
+     * generated class, which shares the package of the class declaring them.
+     */
+    private static boolean callable(Element member) {
+        return !member.getModifiers().contains(Modifier.PRIVATE);
+    }
+
+    private String receiver(TypeElement owner, Element member, String target, String pkg) {
+        if (member.getModifiers().contains(Modifier.STATIC)) return typeName(member.getEnclosingElement().asType(), pkg);
+        return "((" + typeName(owner.asType(), pkg) + ") " + target + ")";
+    }
+
+    private String argument(VariableElement parameter, String value, String pkg) {
+        TypeMirror type = types.erasure(parameter.asType());
+        String cast = type.getKind().isPrimitive()
+                ? types.boxedClass((PrimitiveType) type).getQualifiedName().toString()
+                : typeName(type, pkg);
+        return "(" + cast + ") " + value;
+    }
+
+    private String classes(List<? extends VariableElement> parameters, String pkg) {
+        StringBuilder out = new StringBuilder("new java.lang.Class<?>[]{");
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) out.append(", ");
+            out.append(typeName(parameters.get(i).asType(), pkg)).append(".class");
+        }
+        return out.append('}').toString();
+    }
+
+    private String strings(List<String> values) {
+        StringBuilder out = new StringBuilder("new java.lang.String[]{");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) out.append(", ");
+            out.append(values.get(i) == null ? "null" : quote(values.get(i)));
+        }
+        return out.append('}').toString();
+    }
+
+    private String quote(String value) {
+        return elements.getConstantExpression(value);
+    }
+
+    /**
+     * Source name of the erased type, usable in a class literal or cast from the given package.
+     */
+    private String typeName(TypeMirror type, String pkg) {
+        TypeMirror erased = types.erasure(type);
+        switch (erased.getKind()) {
+            case ARRAY:
+                return typeName(((ArrayType) erased).getComponentType(), pkg) + "[]";
+            case DECLARED:
+                TypeElement element = (TypeElement) ((DeclaredType) erased).asElement();
+                if (!accessible(element, pkg)) throw new Unnameable(element.getQualifiedName().toString());
+                return element.getQualifiedName().toString();
+            default:
+                if (erased.getKind().isPrimitive() || erased.getKind() == TypeKind.VOID) return erased.toString();
+                throw new Unnameable(erased.toString());
+        }
+    }
+
+    private boolean accessible(TypeElement type, String pkg) {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            NestingKind nesting = ((TypeElement) e).getNestingKind();
+            if (nesting == NestingKind.ANONYMOUS || nesting == NestingKind.LOCAL) return false;
+            Set<Modifier> modifiers = e.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE)) return false;
+            if (!modifiers.contains(Modifier.PUBLIC) && !elements.getPackageOf(e).getQualifiedName().contentEquals(pkg)) return false;
+        }
+        return true;
+    }
+}
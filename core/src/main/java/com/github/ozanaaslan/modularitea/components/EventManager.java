@@ -0,0 +1,420 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.SneakyThrows;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+public class EventManager {
+
+    private static final RegisteredHandler[] NO_HANDLERS = new RegisteredHandler[0];
+
+    // Immutable snapshot; writers swap in a new one, dispatches keep whichever they started with
+    private volatile Registry registry = new Registry(new RegisteredListener[0]);
+
+    private volatile EventPipeline pipeline;
+
+    /**
+     * Dispatches an event to all registered listeners.
+     */
+    public <T extends Event> T dispatch(T event) {
+        for (RegisteredHandler handler : registry.handlersFor(event.getClass())) {
+            if (!handler.batch) handler.invoke(event);
+            else if (!event.isCancelled()) handler.invoke(Collections.singletonList(event));
+        }
+        return event;
+    }
+
+    /**
+     * Dispatches a whole batch: listener resolution happens once per event class, every
+     * {@code @EventBus(batch = true)} handler receives all applicable events in a single call and
+     * plain handlers are invoked per event. Batch handlers only see events that are not cancelled
+     * by the time the handler is reached.
+     */
+    @SuppressWarnings("unchecked")
+    public <C extends Collection<? extends Event>> C dispatchAll(C events) {
+        if (events.isEmpty()) return events;
+        Registry snapshot = this.registry;
+
+        Class<?> type = null;
+        boolean uniform = true;
+        for (Event event : events) {
+            if (type == null) type = event.getClass();
+            else if (event.getClass() != type) { uniform = false; break; }
+        }
+
+        if (uniform) {
+            List<Event> batch = Collections.unmodifiableList(events instanceof List ? (List<Event>) events : new ArrayList<>(events));
+            for (RegisteredHandler handler : snapshot.handlersFor(type)) deliver(handler, batch);
+            return events;
+        }
+
+        // Mixed batch: collect the applicable events per handler, then call handlers in registration order
+        Map<RegisteredHandler, List<Event>> perHandler = new TreeMap<>(Comparator.comparingLong(h -> h.sequence));
+        for (Event event : events) {
+            for (RegisteredHandler handler : snapshot.handlersFor(event.getClass()))
+                perHandler.computeIfAbsent(handler, h -> new ArrayList<>()).add(event);
+        }
+        perHandler.forEach((handler, batch) -> deliver(handler, Collections.unmodifiableList(batch)));
+        return events;
+    }
+
+    private static void deliver(RegisteredHandler handler, List<Event> batch) {
+        if (!handler.batch) {
+            for (Event event : batch) handler.invoke(event);
+            return;
+        }
+
+        List<Event> live = batch;
+        for (int i = 0; i < batch.size(); i++) {
+            if (!batch.get(i).isCancelled()) continue;
+            live = new ArrayList<>(batch.size());
+            for (Event event : batch) if (!event.isCancelled()) live.add(event);
+            live = Collections.unmodifiableList(live);
+            break;
+        }
+        if (!live.isEmpty()) handler.invoke(live);
+    }
+
+    /**
+     * Publishes an event to the asynchronous pipeline and returns as soon as it is queued.
+     * The future completes with the event once every handler ran, or exceptionally if one failed
+     * (with a RejectedExecutionException if the pipeline was shut down or refused the event).
+     */
+    public <T extends Event> CompletableFuture<T> dispatchAsync(T event) {
+        EventPipeline tried = null;
+        for (EventPipeline current = getPipeline(); current != tried; current = getPipeline()) {
+            CompletableFuture<T> future = current.submit(event);
+            if (future != null) return future;
+            tried = current; // Shut down: retry on the successor configureAsync installed, if any
+        }
+        CompletableFuture<T> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new RejectedExecutionException("Event pipeline is shut down"));
+        return rejected;
+    }
+
+    /**
+     * Replaces the asynchronous pipeline. The new one takes events right away but only starts
+     * handling them once the previous one drained everything it accepted, so events keep their
+     * per-key order across the swap.
+     */
+    public synchronized void configureAsync(EventPipeline.Settings settings) {
+        EventPipeline previous = this.pipeline;
+        this.pipeline = new EventPipeline(this, settings, previous);
+        if (previous != null) previous.shutdown(0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the asynchronous pipeline, starting one with default settings on first use.
+     */
+    public EventPipeline getPipeline() {
+        EventPipeline current = this.pipeline;
+        if (current != null) return current;
+        synchronized (this) {
+            if (this.pipeline == null) this.pipeline = new EventPipeline(this, EventPipeline.Settings.builder().build(), null);
+            return this.pipeline;
+        }
+    }
+
+    /**
+     * Drains the asynchronous pipeline, if one was ever started.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        EventPipeline current = this.pipeline;
+        return current == null || current.shutdown(timeout, unit);
+    }
+
+    /**
+     * Registers all event-handling methods in a given listener instance.
+     */
+    @SneakyThrows
+    public void register(Class<?> listenerClass) {
+        add(new RegisteredListener(listenerClass));
+    }
+
+    /**
+     * Registers the listener's handlers; throws and registers none of them if one is misdeclared.
+     */
+    public void registerInstance(Object instance) {
+        add(new RegisteredListener(instance));
+    }
+
+    /**
+     * Removes a listener instance, or every listener of the given class when passed a Class.
+     * @return true if anything was removed
+     */
+    public boolean unregister(Object listener) {
+        if (listener instanceof Class) return removeIf(rl -> rl.listener.getClass() == listener);
+        return removeIf(rl -> rl.listener == listener);
+    }
+
+    /**
+     * Removes every listener whose class was defined by the given loader, e.g. a module's classes.
+     */
+    public boolean unregisterAll(ClassLoader classLoader) {
+        return removeIf(rl -> rl.listener.getClass().getClassLoader() == classLoader);
+    }
+
+    public boolean unregisterModule(ModuleManager.Manifest manifest) {
+        return manifest.getClassLoader() != null && unregisterAll(manifest.getClassLoader());
+    }
+
+    private synchronized void add(RegisteredListener listener) {
+        RegisteredListener[] current = registry.listeners;
+        RegisteredListener[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = listener;
+        registry = new Registry(next);
+    }
+
+    private synchronized boolean removeIf(Predicate<RegisteredListener> filter) {
+        RegisteredListener[] current = registry.listeners;
+        RegisteredListener[] next = Arrays.stream(current).filter(filter.negate()).toArray(RegisteredListener[]::new);
+        if (next.length == current.length) return false;
+        registry = new Registry(next);
+        return true;
+    }
+
+    private static final class Registry {
+        private final RegisteredListener[] listeners;
+
+        // Concrete event class -> every handler whose parameter accepts it, in registration order
+        private final Map<Class<?>, RegisteredHandler[]> dispatchTables = new ConcurrentHashMap<>();
+
+        Registry(RegisteredListener[] listeners) {
+            this.listeners = listeners;
+        }
+
+        /**
+         * Resolves the cached dispatch table for a concrete event class, building it on first use.
+         */
+        RegisteredHandler[] handlersFor(Class<?> eventClass) {
+            RegisteredHandler[] table = dispatchTables.get(eventClass);
+            if (table == null) {
+                table = buildTable(eventClass);
+                RegisteredHandler[] raced = dispatchTables.putIfAbsent(eventClass, table);
+                if (raced != null) table = raced;
+            }
+            return table;
+        }
+
+        private RegisteredHandler[] buildTable(Class<?> eventClass) {
+            List<RegisteredHandler> matches = new ArrayList<>();
+            for (RegisteredListener registeredListener : listeners) {
+                for (RegisteredHandler handler : registeredListener.handlers) {
+                    if (handler.eventType.isAssignableFrom(eventClass)) matches.add(handler);
+                }
+            }
+            return matches.isEmpty() ? NO_HANDLERS : matches.toArray(NO_HANDLERS);
+        }
+    }
+
+    // Update the Inner Class constructor
+    private static class RegisteredListener {
+        private final Object listener;
+        private final RegisteredHandler[] handlers;
+
+        RegisteredListener(Object listener) {
+            this.listener = listener;
+            this.handlers = scan(listener);
+        }
+
+        RegisteredListener(Class<?> listenerClass) throws NoSuchMethodException, InvocationTargetException, InstantiationException, IllegalAccessException {
+            this(listenerClass.getDeclaredConstructor().newInstance());
+        }
+
+        /**
+         * Collects the @EventBus methods of the listener once, at registration, from its generated
+         * {@link ClassDescriptor} when it has one.
+         * @throws IllegalArgumentException for a batch handler without a List parameter
+         * @throws IllegalStateException if the descriptor names a handler the class doesn't have
+         */
+        private static RegisteredHandler[] scan(Object listener) {
+            ClassDescriptor descriptor = ClassDescriptor.of(listener.getClass());
+            if (descriptor != null) return describe(listener, descriptor);
+
+            List<RegisteredHandler> found = new ArrayList<>();
+            for (Method method : listener.getClass().getMethods()) {
+                if (!method.isAnnotationPresent(EventBus.class) || method.getParameterCount() != 1) continue;
+                method.setAccessible(true);
+
+                if (!method.getAnnotation(EventBus.class).batch()) {
+                    found.add(new RegisteredHandler(listener, method, method.getParameterTypes()[0], false));
+                } else if (method.getParameterTypes()[0].isAssignableFrom(List.class)) {
+                    found.add(new RegisteredHandler(listener, method, batchElementType(method), true));
+                } else {
+                    throw new IllegalArgumentException("@EventBus(batch = true) handler must take a List parameter: " + method);
+                }
+            }
+            return found.toArray(NO_HANDLERS);
+        }
+
+        private static RegisteredHandler[] describe(Object listener, ClassDescriptor descriptor) {
+            List<RegisteredHandler> found = new ArrayList<>();
+            for (ClassDescriptor.EventMember handler : descriptor.getEvents()) {
+                EventInvoker invoker = handler.getInvoker();
+                if (invoker == null) {
+                    try {
+                        Method method = listener.getClass().getMethod(handler.getMethod(), handler.getParameterType());
+                        method.setAccessible(true);
+                        invoker = compileInvoker(method);
+                    } catch (NoSuchMethodException e) {
+                        throw new IllegalStateException("Out-of-date descriptor: " + listener.getClass().getName()
+                                + " has no @EventBus handler " + handler.getMethod(), e);
+                    }
+                }
+                found.add(new RegisteredHandler(listener, invoker, handler.getEventType(), handler.isBatch()));
+            }
+            return found.toArray(NO_HANDLERS);
+        }
+
+        /**
+         * Reads E from a {@code List<E>} (or {@code List<? extends E>}) parameter, defaulting to Event.
+         */
+        private static Class<?> batchElementType(Method method) {
+            Type type = method.getGenericParameterTypes()[0];
+            if (type instanceof ParameterizedType) {
+                Type element = ((ParameterizedType) type).getActualTypeArguments()[0];
+                if (element instanceof WildcardType) element = ((WildcardType) element).getUpperBounds()[0];
+                if (element instanceof ParameterizedType) element = ((ParameterizedType) element).getRawType();
+                if (element instanceof Class) return (Class<?>) element;
+            }
+            return Event.class;
+        }
+    }
+
+    private static class RegisteredHandler {
+        private static final AtomicLong SEQUENCE = new AtomicLong();
+
+        private final Object listener;
+        private final EventInvoker invoker;
+        private final Class<?> eventType; // Element type for batch handlers
+        private final boolean batch;
+        private final long sequence = SEQUENCE.getAndIncrement();
+
+        RegisteredHandler(Object listener, Method method, Class<?> eventType, boolean batch) {
+            this(listener, compileInvoker(method), eventType, batch);
+        }
+
+        RegisteredHandler(Object listener, EventInvoker invoker, Class<?> eventType, boolean batch) {
+            this.listener = listener;
+            this.invoker = invoker;
+            this.eventType = eventType;
+            this.batch = batch;
+        }
+
+        /**
+         * @param payload the event, or a {@code List} of events for batch handlers
+         */
+        @SneakyThrows
+        void invoke(Object payload) {
+            invoker.invoke(listener, payload);
+        }
+    }
+
+    /**
+     * Direct call-site for a single @EventBus method, generated once at registration.
+     */
+    @FunctionalInterface
+    public interface EventInvoker {
+        void invoke(Object listener, Object payload) throws Throwable;
+    }
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    /**
+     * Picks the fastest invoker the handler allows: a LambdaMetafactory-spun class when the handler
+     * is reachable from this class loader, a bound MethodHandle for module-loaded or non-public
+     * handlers, and plain reflection as the last resort.
+     */
+    static EventInvoker compileInvoker(Method method) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MethodHandle target = lookup.unreflect(method);
+            if (isLinkable(method)) {
+                try {
+                    CallSite site = LambdaMetafactory.metafactory(lookup, "invoke",
+                            MethodType.methodType(EventInvoker.class), INVOKER_TYPE, target,
+                            MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]));
+                    return (EventInvoker) site.getTarget().invoke();
+                } catch (Throwable ignored) {
+                    // Fall through to the MethodHandle invoker
+                }
+            }
+            if (Modifier.isStatic(method.getModifiers()))
+                target = MethodHandles.dropArguments(target, 0, Object.class);
+            MethodHandle handle = target.asType(INVOKER_TYPE);
+            return (listener, payload) -> {
+                handle.invokeExact(listener, payload);
+            };
+        } catch (IllegalAccessException | RuntimeException e) {
+            return (listener, payload) -> {
+                try {
+                    method.invoke(listener, payload);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            };
+        }
+    }
+
+    /**
+     * LambdaMetafactory links the generated class against our own loader, so the handler, its
+     * declaring class chain and its parameter type all have to be public and visible from it.
+     */
+    private static boolean isLinkable(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())) return false;
+        for (Class<?> c = method.getDeclaringClass(); c != null; c = c.getDeclaringClass())
+            if (!Modifier.isPublic(c.getModifiers()) || !isVisible(c)) return false;
+        Class<?> param = method.getParameterTypes()[0];
+        return Modifier.isPublic(param.getModifiers()) && isVisible(param);
+    }
+
+    private static boolean isVisible(Class<?> type) {
+        try {
+            return Class.forName(type.getName(), false, EventManager.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Target({ElementType.METHOD})
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface EventBus {
+        /** The handler takes a {@code List<E>} and receives whole batches (see {@link #dispatchAll}). */
+        boolean batch() default false;
+    }
+
+    public abstract static class Event {
+        @Getter
+        @Setter
+        private boolean cancelled;
+
+        /** Events with equal ordering keys are handled in publish order by {@link #dispatchAsync}. */
+        @Getter
+        @Setter
+        private Object orderingKey;
+    }
+
+}
@@ -0,0 +1,242 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous delivery behind {@link EventManager#dispatchAsync}. Events are published into
+ * bounded, preallocated ring buffers ("lanes"), each drained in batches by its own consumer thread.
+ * Events sharing an ordering key always hash to the same lane, so they are handled in publish order.
+ * Shutting down stops accepting events and lets every lane drain what it already accepted.
+ */
+public class EventPipeline {
+
+    public enum Backpressure {
+        /** The publisher waits until the lane has room. */
+        BLOCK,
+        /** The event is rejected and its future fails with a RejectedExecutionException. */
+        DROP,
+        /**
+         * The publisher dispatches the event itself, bypassing the lane. Events with an ordering key
+         * block instead, since running one here would overtake those of the same key still queued.
+         */
+        CALLER_RUNS
+    }
+
+    @Getter @Builder
+    public static class Settings {
+        @Builder.Default private final int consumers = Runtime.getRuntime().availableProcessors();
+        @Builder.Default private final int capacity = 1024; // Per lane, rounded up to a power of two
+        @Builder.Default private final int batchSize = 64;
+        @Builder.Default private final Backpressure backpressure = Backpressure.BLOCK;
+    }
+
+    private final EventManager eventManager;
+    @Getter private final Settings settings;
+    private final Lane[] lanes;
+    private final AtomicInteger nextLane = new AtomicInteger();
+    private volatile boolean running = true; // Read under the lane lock by offer() and the consumer
+    private volatile EventPipeline predecessor; // Drained before any lane starts handling events
+
+    private static final int OFFERED = 0, FULL = 1, CLOSED = 2;
+
+    /**
+     * @param predecessor pipeline being replaced, or null; its events are all handled before these
+     */
+    EventPipeline(EventManager eventManager, Settings settings, EventPipeline predecessor) {
+        this.eventManager = eventManager;
+        this.settings = settings;
+        this.predecessor = predecessor;
+        this.lanes = new Lane[Math.max(1, settings.getConsumers())];
+
+        int capacity = Integer.highestOneBit(Math.max(2, settings.getCapacity()) - 1) << 1;
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(capacity, Math.max(1, settings.getBatchSize()));
+            Thread thread = new Thread(lanes[i], "EventWorker-" + i);
+            thread.setDaemon(true);
+            lanes[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * @return the event's future, or null if the pipeline is shut down and did not take it
+     */
+    <T extends EventManager.Event> CompletableFuture<T> submit(T event) {
+        if (!running) return null;
+        Backpressure backpressure = settings.getBackpressure();
+        boolean block = backpressure == Backpressure.BLOCK
+                || (backpressure == Backpressure.CALLER_RUNS && event.getOrderingKey() != null);
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        switch (laneFor(event).offer(event, future, block)) {
+            case CLOSED:
+                return null;
+            case FULL:
+                if (backpressure == Backpressure.CALLER_RUNS) complete(event, future);
+                else future.completeExceptionally(new RejectedExecutionException("Event pipeline is saturated"));
+                break;
+            default:
+                break;
+        }
+        return future;
+    }
+
+    private Lane laneFor(EventManager.Event event) {
+        Object key = event.getOrderingKey();
+        if (key == null) return lanes[(nextLane.getAndIncrement() & Integer.MAX_VALUE) % lanes.length];
+
+        int h = key.hashCode();
+        return lanes[((h ^ (h >>> 16)) & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void complete(EventManager.Event event, CompletableFuture future) {
+        try {
+            future.complete(eventManager.dispatch(event));
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * Stops accepting events and waits for the lanes to drain what was already published. Publishers
+     * blocked on a full lane give up and see the pipeline as shut down.
+     * @return true if every consumer finished within the timeout
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        running = false;
+        for (Lane lane : lanes) lane.wake();
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            for (Lane lane : lanes) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining > 0) lane.thread.join(remaining);
+                if (lane.thread.isAlive()) return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    public boolean isRunning() { return running; }
+
+    private void awaitPredecessor() {
+        EventPipeline previous = predecessor;
+        if (previous == null) return;
+        boolean interrupted = false;
+        for (Lane lane : previous.lanes) {
+            while (lane.thread.isAlive()) {
+                try {
+                    lane.thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        predecessor = null; // Don't keep a chain of retired pipelines alive
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private final class Lane implements Runnable {
+        private final EventManager.Event[] events;
+        private final CompletableFuture<?>[] futures;
+        private final int mask;
+        private int head, count;
+
+        // Consumer-owned copy of the slots being processed, reused for every batch
+        private final EventManager.Event[] batchEvents;
+        private final CompletableFuture<?>[] batchFutures;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private Thread thread;
+
+        Lane(int capacity, int batchSize) {
+            this.events = new EventManager.Event[capacity];
+            this.futures = new CompletableFuture<?>[capacity];
+            this.mask = capacity - 1;
+            this.batchEvents = new EventManager.Event[Math.min(batchSize, capacity)];
+            this.batchFutures = new CompletableFuture<?>[batchEvents.length];
+        }
+
+        /**
+         * Checks 'running' under the lane lock: once the consumer saw the lane empty and the pipeline
+         * stopped, no event can be added behind its back.
+         */
+        int offer(EventManager.Event event, CompletableFuture<?> future, boolean block) {
+            lock.lock();
+            try {
+                while (true) {
+                    if (!running) return CLOSED;
+                    if (count < events.length) break;
+                    if (!block) return FULL;
+                    notFull.awaitUninterruptibly();
+                }
+                int tail = (head + count) & mask;
+                events[tail] = event;
+                futures[tail] = future;
+                count++;
+                notEmpty.signal();
+                return OFFERED;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void wake() {
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            awaitPredecessor();
+            while (true) {
+                int taken;
+                lock.lock();
+                try {
+                    while (count == 0) {
+                        if (!running) return; // Drained; offer() rejects from now on
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    taken = Math.min(count, batchEvents.length);
+                    for (int i = 0; i < taken; i++) {
+                        int slot = (head + i) & mask;
+                        batchEvents[i] = events[slot];
+                        batchFutures[i] = futures[slot];
+                        events[slot] = null;
+                        futures[slot] = null;
+                    }
+                    head = (head + taken) & mask;
+                    count -= taken;
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                for (int i = 0; i < taken; i++) {
+                    complete(batchEvents[i], batchFutures[i]);
+                    batchEvents[i] = null;
+                    batchFutures[i] = null;
+                }
+            }
+        }
+    }
+}
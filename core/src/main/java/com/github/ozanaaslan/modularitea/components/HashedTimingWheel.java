@@ -0,0 +1,168 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel backend for {@link TaskManager}. A single tick thread advances over a ring of
+ * buckets; timeouts land in bucket {@code deadlineTick & mask} with a round counter, so inserting and
+ * cancelling are O(1) regardless of how many tasks are scheduled. New and cancelled timeouts are
+ * handed to the tick thread through lock-free queues, so callers never contend on the wheel itself.
+ * Triggers run on the tick thread and are expected to hand work off immediately. Like
+ * {@link TaskManager.ExecutorBackend}, it rejects timeouts once shut down.
+ */
+public class HashedTimingWheel implements TaskManager.SchedulerBackend {
+
+    private static final int INIT = 0, CANCELLED = 1, EXPIRED = 2;
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final Thread ticker;
+    private final long startTime;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param tickDuration resolution of the wheel; deadlines are rounded up to the next tick
+     * @param wheelSize    number of buckets, rounded up to a power of two
+     */
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int wheelSize) {
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        this.mask = size - 1;
+
+        this.startTime = System.nanoTime();
+        this.ticker = new Thread(this::run, "TaskTicker");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    @Override
+    public TaskManager.TimerHandle schedule(Runnable trigger, long delay, TimeUnit unit) {
+        if (!running) throw new RejectedExecutionException("Timing wheel is shut down");
+        Timeout timeout = new Timeout(trigger, System.nanoTime() - startTime + Math.max(0, unit.toNanos(delay)));
+        pending.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        ticker.interrupt();
+        pending.clear(); // Never transferred; raced schedule() calls are dropped too
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = (tick + 1) * tickNanos;
+            long sleep = deadline - (System.nanoTime() - startTime);
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                }
+                continue;
+            }
+
+            removeCancelled();
+            transferPending();
+            wheel[(int) (tick & mask)].expire(tick);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = pending.poll();
+            if (timeout == null) return;
+            if (timeout.state.get() == CANCELLED) continue;
+
+            long dueTick = Math.max((timeout.deadline + tickNanos - 1) / tickNanos, tick);
+            timeout.remainingRounds = (dueTick - tick) >> Integer.numberOfTrailingZeros(wheel.length);
+            wheel[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        for (Timeout timeout; (timeout = cancelled.poll()) != null; ) {
+            if (timeout.bucket != null) timeout.bucket.remove(timeout);
+        }
+    }
+
+    private final class Timeout implements TaskManager.TimerHandle {
+        private final Runnable trigger;
+        private final long deadline; // Nanos since startTime
+        private final AtomicInteger state = new AtomicInteger(INIT);
+        private long remainingRounds;
+        private Timeout prev, next;
+        private Bucket bucket;
+
+        Timeout(Runnable trigger, long deadline) {
+            this.trigger = trigger;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void cancel() {
+            if (state.compareAndSet(INIT, CANCELLED)) cancelled.add(this);
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts; only touched by the tick thread.
+     */
+    private static final class Bucket {
+        private Timeout head, tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            if (timeout == head) head = timeout.next;
+            if (timeout == tail) tail = timeout.prev;
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire(long tick) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.state.compareAndSet(INIT, EXPIRED)) {
+                        try {
+                            timeout.trigger.run();
+                        } catch (Throwable t) {
+                            System.err.println("Timer trigger failed at tick " + tick);
+                            t.printStackTrace();
+                        }
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.security.cert.Certificate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Class loader of a single module. The jar's zip central directory is read once and indexed by
+ * entry name, so defining a class is a hash lookup plus one positional read (and inflate) of the
+ * entry, without going through JarURLConnection. The jar is not mapped: it stays open for reading
+ * until {@link #close()}, which releases it (no file lock is left behind on Windows, and a jar
+ * overwritten in place fails to load classes instead of faulting a mapping).
+ * <p>
+ * Delegation is parent-first like URLClassLoader: the parent (the framework's loader) is asked
+ * first, so JDK, javax.* and framework classes always come from it and a module can't shadow them.
+ * Other classes are found through the shared {@link Packages} map: one lookup names the modules
+ * owning a package, and the first one this module may see (itself or a direct or transitive
+ * dependency) defines it. Nothing walks a chain of module loaders. Resources come from the parent,
+ * then this jar, then the dependencies' jars, so getResources and ServiceLoader see the whole set.
+ * If the jar's central directory can't be read (e.g. zip64), its classes are defined through the
+ * URL class path instead, with the packages taken from a plain JarFile listing.
+ */
+public class ModuleClassLoader extends URLClassLoader {
+    static { ClassLoader.registerAsParallelCapable(); }
+
+    private static final int LOCAL_HEADER = 0x04034b50, CENTRAL_HEADER = 0x02014b50, END_OF_CENTRAL = 0x06054b50;
+    private static final int STORED = 0, DEFLATED = 8;
+
+    @Getter private final String moduleName;
+    private final Packages packages;
+    private final Set<ClassLoader> visible; // This loader and every dependency, transitively, in 'depends' order
+    private final CodeSource codeSource;
+    private final RandomAccessFile jar;    // Null when not indexed
+    private volatile boolean closed;
+    private final Map<String, Entry> entries;
+    private final Set<String> unindexedClasses;  // Class entry paths when the jar is not indexed
+
+    private final LongAdder classCount = new LongAdder();
+    private final LongAdder defineNanos = new LongAdder();
+    private final LongAdder delegatedCount = new LongAdder();
+    @Getter private final LatencyHistogram defineTimes = new LatencyHistogram();
+
+    private static final class Entry {
+        final int offset;       // Local file header
+        final int compressed;
+        final int size;
+        final int method;
+
+        Entry(int offset, int compressed, int size, int method) {
+            this.offset = offset;
+            this.compressed = compressed;
+            this.size = size;
+            this.method = method;
+        }
+    }
+
+    /**
+     * @param dependencies loaders of the modules this one declares in 'depends'
+     */
+    public ModuleClassLoader(String moduleName, File jar, ClassLoader parent, List<ClassLoader> dependencies, Packages packages) throws IOException {
+        super(new URL[]{jar.toURI().toURL()}, parent);
+        this.moduleName = moduleName;
+        this.packages = packages;
+        this.codeSource = new CodeSource(jar.toURI().toURL(), (Certificate[]) null);
+
+        Set<ClassLoader> visible = new LinkedHashSet<>();
+        visible.add(this);
+        for (ClassLoader dependency : dependencies) {
+            visible.add(dependency);
+            if (dependency instanceof ModuleClassLoader) visible.addAll(((ModuleClassLoader) dependency).visible);
+        }
+        this.visible = visible;
+
+        Map<String, Entry> entries = new HashMap<>();
+        Set<String> unindexed = Collections.emptySet();
+        RandomAccessFile file = null;
+        try {
+            file = new RandomAccessFile(jar, "r");
+            readCentralDirectory(file, entries);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Module " + moduleName + ": cannot index " + jar.getName() + ", using the URL class path (" + e + ")");
+            entries.clear();
+            if (file != null) file.close();
+            file = null;
+            unindexed = listClasses(jar);
+        }
+        this.jar = file;
+        this.entries = entries;
+        this.unindexedClasses = unindexed;
+
+        Set<String> owned = new HashSet<>();
+        for (String name : file != null ? entries.keySet() : unindexed) {
+            if (name.endsWith(".class")) {
+                int slash = name.lastIndexOf('/');
+                owned.add(slash < 0 ? "" : name.substring(0, slash).replace('/', '.'));
+            }
+        }
+        for (String pkg : owned) packages.add(pkg, this);
+    }
+
+    /**
+     * Class entries of a jar the index can't read, through JarFile (which handles zip64 and
+     * prepended data); empty if even that fails.
+     */
+    private Set<String> listClasses(File jar) {
+        Set<String> classes = new HashSet<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            for (Enumeration<JarEntry> it = jarFile.entries(); it.hasMoreElements(); ) {
+                String name = it.nextElement().getName();
+                if (name.endsWith(".class")) classes.add(name);
+            }
+        } catch (IOException e) {
+            System.err.println("Module " + moduleName + ": cannot list " + jar.getName() + ", its classes are not visible to other modules (" + e + ")");
+        }
+        return classes;
+    }
+
+    private boolean owns(String path) {
+        return jar != null ? entries.containsKey(path) : unindexedClasses.contains(path);
+    }
+
+    /**
+     * Copies the end record and the central directory out of the file; nothing of it is kept but
+     * the entries.
+     */
+    private static void readCentralDirectory(RandomAccessFile file, Map<String, Entry> entries) throws IOException {
+        long length = file.length();
+        if (length > Integer.MAX_VALUE) throw new IOException("zip64 is not supported");
+        int tailLength = (int) Math.min(length, 22 + 0xFFFF);
+        ByteBuffer tail = readFully(file, length - tailLength, tailLength);
+
+        int end = -1;
+        for (int i = tailLength - 22; i >= 0; i--) {
+            if (tail.getInt(i) == END_OF_CENTRAL) { end = i; break; }
+        }
+        if (end < 0) throw new IOException("no end of central directory");
+
+        int count = tail.getShort(end + 10) & 0xFFFF;
+        long directorySize = tail.getInt(end + 12) & 0xFFFFFFFFL;
+        long position = tail.getInt(end + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || position == 0xFFFFFFFFL) throw new IOException("zip64 is not supported");
+        if (position + directorySize > length) throw new IOException("corrupt end of central directory");
+        ByteBuffer buffer = readFully(file, position, (int) directorySize);
+
+        byte[] name = new byte[256];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            if (buffer.getInt(offset) != CENTRAL_HEADER) throw new IOException("corrupt central directory");
+            int method = buffer.getShort(offset + 10) & 0xFFFF;
+            int compressed = buffer.getInt(offset + 20);
+            int size = buffer.getInt(offset + 24);
+            int nameLength = buffer.getShort(offset + 28) & 0xFFFF;
+            int extraLength = buffer.getShort(offset + 30) & 0xFFFF;
+            int commentLength = buffer.getShort(offset + 32) & 0xFFFF;
+            int local = buffer.getInt(offset + 42);
+
+            if (name.length < nameLength) name = new byte[nameLength];
+            for (int b = 0; b < nameLength; b++) name[b] = buffer.get(offset + 46 + b);
+            String entryName = new String(name, 0, nameLength, StandardCharsets.UTF_8);
+            if (!entryName.endsWith("/")) entries.put(entryName, new Entry(local, compressed, size, method));
+
+            offset += 46 + nameLength + extraLength + commentLength;
+        }
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> type = findLoadedClass(name);
+            if (type == null) {
+                try {
+                    type = getParent().loadClass(name);
+                } catch (ClassNotFoundException ignored) {
+                    // Not a framework or JDK class
+                }
+            }
+            if (type == null) type = findInModules(name);
+            if (type == null) type = findClass(name); // Not indexed: own classes come from the URL class path
+            if (resolve) resolveClass(type);
+            return type;
+        }
+    }
+
+    private Class<?> findInModules(String name) throws ClassNotFoundException {
+        int dot = name.lastIndexOf('.');
+        ModuleClassLoader[] owners = packages.get(dot < 0 ? "" : name.substring(0, dot));
+        if (owners == null) return null;
+
+        String path = null;
+        for (ModuleClassLoader owner : owners) {
+            if (!visible.contains(owner)) continue;
+            if (path == null) path = name.replace('.', '/').concat(".class");
+            if (!owner.owns(path)) continue;
+            if (owner == this) return findClass(name);
+            delegatedCount.increment();
+            return owner.loadOwnClass(name);
+        }
+        return null;
+    }
+
+    private Class<?> loadOwnClass(String name) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> type = findLoadedClass(name);
+            return type != null ? type : findClass(name);
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        if (jar == null) return super.findClass(name);
+        Entry entry = entries.get(name.replace('.', '/').concat(".class"));
+        if (entry == null || closed) throw new ClassNotFoundException(name);
+
+        long start = System.nanoTime();
+        byte[] bytes;
+        try {
+            bytes = read(entry);
+        } catch (IOException | DataFormatException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) definePackageIfNeeded(name.substring(0, dot));
+        Class<?> type = defineClass(name, bytes, 0, bytes.length, codeSource);
+
+        long elapsed = System.nanoTime() - start;
+        classCount.increment();
+        defineNanos.add(elapsed);
+        defineTimes.record(elapsed);
+        return type;
+    }
+
+    /**
+     * This jar first, then the jars of the dependencies; the parent was already asked by getResource.
+     */
+    @Override
+    public URL findResource(String name) {
+        for (ClassLoader loader : visible) {
+            URL url = loader instanceof ModuleClassLoader ? ((ModuleClassLoader) loader).findOwnResource(name) : loader.getResource(name);
+            if (url != null) return url;
+        }
+        return null;
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException {
+        Set<URL> urls = new LinkedHashSet<>();
+        for (ClassLoader loader : visible) {
+            Enumeration<URL> found = loader instanceof ModuleClassLoader ? ((ModuleClassLoader) loader).findOwnResources(name) : loader.getResources(name);
+            while (found.hasMoreElements()) urls.add(found.nextElement());
+        }
+        return Collections.enumeration(urls);
+    }
+
+    private URL findOwnResource(String name) {
+        return super.findResource(name);
+    }
+
+    private Enumeration<URL> findOwnResources(String name) throws IOException {
+        return super.findResources(name);
+    }
+
+    @SuppressWarnings("deprecation") // getDefinedPackage is Java 9+
+    private void definePackageIfNeeded(String pkg) {
+        if (getPackage(pkg) != null) return;
+        try {
+            definePackage(pkg, null, null, null, null, null, null, null);
+        } catch (IllegalArgumentException ignored) {
+            // Defined concurrently by another thread
+        }
+    }
+
+    private byte[] read(Entry entry) throws IOException, DataFormatException {
+        if (entry.method != STORED && entry.method != DEFLATED)
+            throw new IOException("unsupported compression method " + entry.method);
+        byte[] bytes = new byte[entry.size];
+        byte[] compressed = entry.method == STORED ? bytes : new byte[entry.compressed];
+        synchronized (jar) { // One file pointer; class definitions are short and already serialized per name
+            ByteBuffer header = readFully(jar, entry.offset, 30);
+            if (header.getInt(0) != LOCAL_HEADER) throw new IOException("corrupt local header");
+            jar.seek((long) entry.offset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF));
+            jar.readFully(compressed);
+        }
+        if (entry.method == STORED) return bytes;
+
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            int total = 0;
+            while (total < bytes.length && !inflater.finished()) {
+                int n = inflater.inflate(bytes, total, bytes.length - total);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) throw new IOException("truncated entry");
+                total += n;
+            }
+        } finally {
+            inflater.end();
+        }
+        return bytes;
+    }
+
+    /** Little-endian view of 'length' bytes of the file at 'position'. */
+    private static ByteBuffer readFully(RandomAccessFile file, long position, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        synchronized (file) {
+            file.seek(position);
+            file.readFully(bytes);
+        }
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        packages.remove(this);
+        closed = true;
+        try {
+            if (jar != null) {
+                synchronized (jar) {
+                    jar.close();
+                }
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    /** Classes this loader defined from its own jar. */
+    public long getLoadedClassCount() { return classCount.sum(); }
+
+    /** Total time spent reading and defining those classes. */
+    public long getDefineNanos() { return defineNanos.sum(); }
+
+    /** Lookups answered by a dependency's loader. */
+    public long getDelegatedCount() { return delegatedCount.sum(); }
+
+    /**
+     * Package name -> loaders of the modules with classes in it. Shared by every module of a
+     * {@link ModuleManager}; arrays are replaced, never mutated.
+     */
+    public static final class Packages {
+        private final Map<String, ModuleClassLoader[]> owners = new ConcurrentHashMap<>();
+
+        ModuleClassLoader[] get(String pkg) {
+            return owners.get(pkg);
+        }
+
+        synchronized void add(String pkg, ModuleClassLoader loader) {
+            ModuleClassLoader[] current = owners.get(pkg);
+            if (current == null) {
+                owners.put(pkg, new ModuleClassLoader[]{loader});
+            } else {
+                ModuleClassLoader[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = loader;
+                owners.put(pkg, next);
+            }
+        }
+
+        synchronized void remove(ModuleClassLoader loader) {
+            for (Iterator<Map.Entry<String, ModuleClassLoader[]>> it = owners.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, ModuleClassLoader[]> entry = it.next();
+                List<ModuleClassLoader> kept = new ArrayList<>(Arrays.asList(entry.getValue()));
+                if (!kept.remove(loader)) continue;
+                if (kept.isEmpty()) it.remove();
+                else entry.setValue(kept.toArray(new ModuleClassLoader[0]));
+            }
+        }
+
+        /** Packages split across several modules. */
+        public Map<String, List<String>> getSplitPackages() {
+            Map<String, List<String>> split = new TreeMap<>();
+            owners.forEach((pkg, loaders) -> {
+                if (loaders.length < 2) return;
+                List<String> names = new ArrayList<>();
+                for (ModuleClassLoader loader : loaders) names.add(loader.moduleName);
+                split.put(pkg, names);
+            });
+            return split;
+        }
+    }
+}
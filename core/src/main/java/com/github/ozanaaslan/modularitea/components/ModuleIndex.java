@@ -0,0 +1,169 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+/**
+ * Binary cache of what {@link ModuleManager} reads from each module jar, its manifest attributes,
+ * keyed by file name and validated by size and mtime. A jar whose mtime changed but
+ * whose size and CRC-32 still match (copied, touched) is reused as well. Only new or modified jars
+ * are opened; the file is rewritten atomically when anything changed.
+ * <pre>
+ * int magic | int version | int count | count * (UTF name | long size | long mtime | long crc |
+ *     int attrs | attrs * (UTF key | UTF value))
+ * </pre>
+ */
+class ModuleIndex {
+
+    private static final int MAGIC = 0x4D544958; // "MTIX"
+    private static final int VERSION = 2;
+
+    private final File file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    static final class Entry {
+        final long size;
+        final long modified;
+        final long crc;
+        final Properties attributes;
+
+        Entry(long size, long modified, long crc, Properties attributes) {
+            this.size = size;
+            this.modified = modified;
+            this.crc = crc;
+            this.attributes = attributes;
+        }
+    }
+
+    ModuleIndex(File file) {
+        this.file = file;
+        if (file.isFile()) {
+            try {
+                read();
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable module index " + file.getName() + ": " + e);
+                entries.clear();
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * The cached entry for the jar, or a fresh one read from the jar when it is new or changed.
+     * Safe to call for different jars in parallel.
+     */
+    Entry get(File jar) throws IOException {
+        String key = jar.getName();
+        Entry cached = entries.get(key);
+        long size = jar.length(), modified = jar.lastModified();
+        if (cached != null && cached.size == size && cached.modified == modified) return cached;
+
+        if (cached != null && cached.size == size) {
+            long crc = checksum(jar);
+            if (crc == cached.crc) {
+                Entry touched = new Entry(size, modified, crc, cached.attributes);
+                entries.put(key, touched);
+                dirty = true;
+                return touched;
+            }
+        }
+
+        Entry fresh = scan(jar, size, modified);
+        entries.put(key, fresh);
+        dirty = true;
+        return fresh;
+    }
+
+    /**
+     * Drops jars that are gone and writes the index if anything changed since it was loaded.
+     */
+    void save(Collection<File> present) {
+        Set<String> names = new HashSet<>();
+        for (File jar : present) names.add(jar.getName());
+        if (entries.keySet().retainAll(names)) dirty = true;
+        if (!dirty) return;
+
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                write(out);
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            System.err.println("Failed to write module index " + file.getName());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the jar without consulting or updating any index.
+     */
+    static Entry scan(File jar) throws IOException {
+        return scan(jar, jar.length(), jar.lastModified());
+    }
+
+    private static Entry scan(File jar, long size, long modified) throws IOException {
+        Properties attributes = new Properties();
+        try (JarFile jarFile = new JarFile(jar)) {
+            JarEntry manifest = jarFile.getJarEntry("manifest.properties");
+            if (manifest == null) throw new FileNotFoundException("manifest.properties missing in " + jar.getName());
+            try (InputStream in = jarFile.getInputStream(manifest)) {
+                attributes.load(in);
+            }
+        }
+        return new Entry(size, modified, checksum(jar), attributes);
+    }
+
+    private static long checksum(File jar) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(jar)) {
+            for (int n; (n = in.read(buffer)) > 0; ) crc.update(buffer, 0, n);
+        }
+        return crc.getValue();
+    }
+
+    private void read() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("unknown format");
+            for (int i = in.readInt(); i > 0; i--) {
+                String name = in.readUTF();
+                long size = in.readLong(), modified = in.readLong(), crc = in.readLong();
+                Properties attributes = new Properties();
+                for (int a = in.readInt(); a > 0; a--) attributes.setProperty(in.readUTF(), in.readUTF());
+                entries.put(name, new Entry(size, modified, crc, attributes));
+            }
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            out.writeUTF(e.getKey());
+            out.writeLong(entry.size);
+            out.writeLong(entry.modified);
+            out.writeLong(entry.crc);
+            Set<String> keys = entry.attributes.stringPropertyNames();
+            out.writeInt(keys.size());
+            for (String key : keys) {
+                out.writeUTF(key);
+                out.writeUTF(entry.attributes.getProperty(key));
+            }
+        }
+    }
+}
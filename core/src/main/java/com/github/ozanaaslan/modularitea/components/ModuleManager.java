@@ -0,0 +1,951 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.SneakyThrows;
+
+import java.io.*;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.net.URLClassLoader;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+public class ModuleManager {
+
+    // Replaced as a whole on (re)load so readers always see a consistent snapshot
+    @Getter private volatile List<Manifest> manifests = Collections.emptyList(); // Dependencies before dependents
+    private volatile List<List<Manifest>> levels = Collections.emptyList(); // Level n only depends on levels < n
+    @Getter private File workingDirectory;
+    @Getter private Configuration configuration;
+    // false (-Dmodularitea.modules.parallel=false): load and start modules one by one in topological order
+    @Getter @Setter private boolean parallel = Boolean.parseBoolean(System.getProperty("modularitea.modules.parallel", "true"));
+    private volatile ForkJoinPool loaderPool;
+    private final Map<String, Manifest> modulesByName = new ConcurrentHashMap<>(); // Lowercased name
+    @Getter private final ModuleClassLoader.Packages packages = new ModuleClassLoader.Packages();
+    private ModuleIndex index;
+    @Setter private ModuleListener listener = new ModuleListener() {};
+    private ModuleWatcher watcher;
+    private final List<LeakCheck> leakChecks = new CopyOnWriteArrayList<>();
+
+    /**
+     * Callbacks around hot reloads, so the application can wire a module into its managers and out again.
+     */
+    public interface ModuleListener {
+        /** A module was (re)loaded and instantiated; its entrypoints have not run yet. */
+        default void moduleLoaded(Manifest manifest) {}
+        /** A module is about to be unloaded; its shutdownEntrypoint has already run. */
+        default void moduleUnloading(Manifest manifest) {}
+    }
+
+    public ModuleManager(File workingDirectory) {
+        this.workingDirectory = workingDirectory;
+        init();
+    }
+
+    public ModuleManager(){
+        this(new File(System.getProperty("user.dir"), "modules"));
+    }
+
+    @SneakyThrows
+    private void init(){
+        if(!workingDirectory.exists()) workingDirectory.mkdirs();
+        this.configuration = new Configuration(new File(workingDirectory, "modules.properties"));
+    }
+
+    /**
+     * Reads every module jar's manifest in parallel - or takes it from the index file in the modules
+     * directory if the jar is unchanged - orders the modules by their 'depends' lists
+     * (comma separated) and creates class loaders and module instances level by level: modules in the
+     * same level don't depend on each other and are instantiated in parallel. Modules on a dependency
+     * cycle are reported and skipped, together with everything depending on them; so are modules
+     * whose class loader or main class fails, without holding back unrelated modules.
+     */
+    @SneakyThrows
+    public synchronized void loadModules() {
+        File[] files = listJars();
+        if (files == null) return;
+
+        index = new ModuleIndex(new File(workingDirectory, ".modules.idx"));
+        List<CompletableFuture<Manifest>> reads = new ArrayList<>();
+        for (File file : files) {
+            reads.add(CompletableFuture.supplyAsync(() -> readManifest(file, index), executor()));
+        }
+        List<Manifest> found = new ArrayList<>();
+        for (int i = 0; i < files.length; i++) {
+            try {
+                found.add(reads.get(i).join());
+            } catch (CompletionException e) {
+                System.err.println("Skipping module jar " + files[i].getName() + ": unreadable manifest");
+                e.getCause().printStackTrace();
+            }
+        }
+
+        index.save(Arrays.asList(files));
+
+        List<List<Manifest>> sortedLevels = sortByDependencies(found, Collections.emptyMap(), true);
+        for (List<Manifest> level : sortedLevels) {
+            for (Manifest manifest : level) modulesByName.put(manifest.getName().toLowerCase(), manifest);
+        }
+
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        List<List<Manifest>> loaded = new ArrayList<>();
+        for (List<Manifest> level : sortedLevels) {
+            List<Manifest> loading = new ArrayList<>();
+            for (Manifest manifest : level) {
+                String blocker = null;
+                for (String depName : manifest.getDependencies()) if (failed.contains(depName.toLowerCase())) blocker = depName;
+                if (blocker != null) {
+                    System.err.println("Not loading module " + manifest.getName() + ": its dependency " + blocker + " failed to load");
+                    failed.add(manifest.getName().toLowerCase());
+                    continue;
+                }
+                try {
+                    linkModuleLoader(manifest);
+                    loading.add(manifest);
+                } catch (Throwable t) {
+                    System.err.println("Failed to load module " + manifest.getName());
+                    t.printStackTrace();
+                    failed.add(manifest.getName().toLowerCase());
+                }
+            }
+            runLevel(loading, manifest -> {
+                try {
+                    manifest.getModule();
+                } catch (Throwable t) {
+                    System.err.println("Failed to load module " + manifest.getName());
+                    t.printStackTrace();
+                    failed.add(manifest.getName().toLowerCase());
+                }
+            });
+            loading.removeIf(manifest -> failed.contains(manifest.getName().toLowerCase()));
+            if (!loading.isEmpty()) loaded.add(loading);
+        }
+        for (List<Manifest> level : sortedLevels) {
+            for (Manifest manifest : level) if (failed.contains(manifest.getName().toLowerCase())) discard(manifest);
+        }
+
+        levels = loaded;
+        List<Manifest> sorted = new ArrayList<>();
+        levels.forEach(sorted::addAll);
+        manifests = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Forgets a module that never finished loading and closes its class loader.
+     */
+    private void discard(Manifest manifest) {
+        modulesByName.remove(manifest.getName().toLowerCase(), manifest);
+        URLClassLoader loader = manifest.getClassLoader();
+        manifest.module = null;
+        manifest.classLoader = null;
+        if (loader == null) return;
+        try {
+            loader.close();
+        } catch (Exception e) {
+            System.err.println("Failed to close class loader of module " + manifest.getName());
+            e.printStackTrace();
+        }
+    }
+
+    private File[] listJars() {
+        File[] files = workingDirectory.listFiles((dir, name) -> name.endsWith(".jar"));
+        if (files != null) Arrays.sort(files); // Deterministic order within a level
+        return files;
+    }
+
+    /**
+     * Watches the modules directory and hot reloads jars that are added, replaced or removed, see
+     * {@link #reload(Collection)}. Changes are picked up once a jar has been quiet for
+     * -Dmodularitea.modules.quietPeriod ms (default 500), so half-copied jars are not loaded.
+     */
+    @SneakyThrows
+    public synchronized void watch() {
+        if (watcher != null) return;
+        watcher = new ModuleWatcher(this, workingDirectory, Long.getLong("modularitea.modules.quietPeriod", 500L));
+    }
+
+    /**
+     * Unloads the modules of the changed jars together with every module depending on them, then loads
+     * whatever jars still exist - the changed ones and the unchanged dependents - while all other
+     * modules keep running. Unloading runs shutdownEntrypoint, notifies the {@link ModuleListener}
+     * and closes the old class loader, which is then checked for leaks (see {@link #checkLeaks()}).
+     * Reloaded modules run the same entrypoints their previous instance had run; new modules run
+     * primaryEntrypoint. Modules that were waiting for a missing dependency are reloaded when it appears.
+     */
+    public synchronized void reload(Collection<File> changedJars) {
+        if (index == null) return; // loadModules hasn't run
+        long start = System.nanoTime();
+
+        Set<String> changed = new HashSet<>();
+        for (File jar : changedJars) changed.add(jar.getName());
+
+        List<Manifest> fresh = new ArrayList<>();
+        for (File jar : changedJars) {
+            if (!jar.isFile()) continue;
+            try {
+                fresh.add(new Manifest(jar, index.get(jar)));
+            } catch (Exception e) {
+                System.err.println("Skipping module jar " + jar.getName() + ": unreadable manifest");
+                e.printStackTrace();
+            }
+        }
+
+        // Everything loaded from a changed jar, everything waiting for a new module, and their dependents
+        Set<Manifest> affected = new LinkedHashSet<>();
+        for (Manifest manifest : manifests) {
+            boolean hit = changed.contains(manifest.getFile().getName());
+            for (Manifest added : fresh) hit |= manifest.dependsOn(added.getName());
+            if (hit) collectDependents(manifest, affected);
+        }
+
+        Map<String, Set<String>> entrypoints = new HashMap<>();
+        List<Manifest> current = new ArrayList<>(manifests);
+        for (int i = current.size() - 1; i >= 0; i--) {
+            Manifest manifest = current.get(i);
+            if (!affected.contains(manifest)) continue;
+            entrypoints.put(manifest.getName().toLowerCase(), unload(manifest));
+            current.remove(i);
+        }
+
+        List<Manifest> reloading = new ArrayList<>(fresh);
+        for (Manifest old : affected) {
+            if (changed.contains(old.getFile().getName()) || !old.getFile().isFile()) continue;
+            reloading.add(new Manifest(old.getFile(), old.indexed));
+        }
+
+        Map<String, Manifest> loaded = new HashMap<>();
+        for (Manifest manifest : current) loaded.put(manifest.getName().toLowerCase(), manifest);
+        List<String> names = new ArrayList<>();
+        for (List<Manifest> level : sortByDependencies(reloading, loaded, true)) {
+            List<Manifest> started = new ArrayList<>();
+            for (Manifest manifest : level) {
+                try {
+                    linkModuleLoader(manifest);
+                    manifest.getModule();
+                    modulesByName.put(manifest.getName().toLowerCase(), manifest);
+                    listener.moduleLoaded(manifest);
+                    started.add(manifest);
+                    current.add(manifest);
+                    names.add(manifest.getName());
+                } catch (Throwable t) {
+                    System.err.println("Failed to load module " + manifest.getName());
+                    t.printStackTrace();
+                }
+            }
+            for (String entrypoint : new String[]{"primaryEntrypoint", "secondaryEntrypoint", "tertiaryEntrypoint"}) {
+                runLevel(started, m -> {
+                    Set<String> previous = entrypoints.get(m.getName().toLowerCase());
+                    boolean run = previous == null ? entrypoint.equals("primaryEntrypoint") : previous.contains(entrypoint);
+                    if (!run) return;
+                    try {
+                        m.getModule().load(entrypoint);
+                    } catch (Throwable t) {
+                        System.err.println("Module " + m.getName() + " failed in " + entrypoint);
+                        t.printStackTrace();
+                    }
+                });
+            }
+        }
+
+        List<List<Manifest>> relevelled = sortByDependencies(current, Collections.emptyMap(), false);
+        List<Manifest> sorted = new ArrayList<>();
+        relevelled.forEach(sorted::addAll);
+        levels = relevelled;
+        manifests = Collections.unmodifiableList(sorted);
+        File[] files = listJars();
+        if (files != null) index.save(Arrays.asList(files));
+
+        List<String> unloaded = new ArrayList<>();
+        for (Manifest old : affected) if (!names.contains(old.getName())) unloaded.add(old.getName());
+        System.out.println("Module reload took " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms"
+                + (names.isEmpty() ? "" : ", loaded: " + String.join(", ", names))
+                + (unloaded.isEmpty() ? "" : ", unloaded: " + String.join(", ", unloaded)));
+    }
+
+    private void collectDependents(Manifest manifest, Set<Manifest> affected) {
+        if (!affected.add(manifest)) return;
+        for (Manifest other : manifests) {
+            if (other.dependsOn(manifest.getName())) collectDependents(other, affected);
+        }
+    }
+
+    /**
+     * @return the entrypoints the module had run
+     */
+    private Set<String> unload(Manifest manifest) {
+        Set<String> executed = new HashSet<>();
+        if (manifest.module != null) {
+            executed.addAll(manifest.module.executedEntrypoints);
+            try {
+                manifest.module.invokeShutdown();
+            } catch (Throwable t) {
+                System.err.println("Module " + manifest.getName() + " failed to shut down");
+                t.printStackTrace();
+            }
+        }
+        try {
+            listener.moduleUnloading(manifest);
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+        modulesByName.remove(manifest.getName().toLowerCase(), manifest);
+
+        URLClassLoader loader = manifest.getClassLoader();
+        manifest.module = null;
+        manifest.classLoader = null;
+        if (loader != null) {
+            try {
+                loader.close();
+            } catch (Exception e) {
+                System.err.println("Failed to close class loader of module " + manifest.getName());
+                e.printStackTrace();
+            }
+            leakChecks.add(new LeakCheck(manifest.getName(), loader));
+        }
+        return executed;
+    }
+
+    /**
+     * Reports class loaders of unloaded modules that are still reachable
+     * -Dmodularitea.modules.leakCheckDelay ms (default 30000) after unloading - typically a reference
+     * kept by another module, a thread or a static cache. Called periodically by the watcher.
+     */
+    public void checkLeaks() {
+        boolean collected = false;
+        for (LeakCheck check : leakChecks) {
+            if (check.loader.get() == null) {
+                leakChecks.remove(check);
+                continue;
+            }
+            if (System.nanoTime() - check.deadline < 0) continue;
+            if (!collected) {
+                System.gc(); // Give unreferenced loaders a last chance before reporting them
+                collected = true;
+            }
+            leakChecks.remove(check);
+            if (check.loader.get() != null) {
+                System.err.println("Possible class loader leak: module " + check.module
+                        + " is still reachable " + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - check.unloaded) + "s after unloading");
+            }
+        }
+    }
+
+    private static final class LeakCheck {
+        private final String module;
+        private final WeakReference<ClassLoader> loader;
+        private final long unloaded = System.nanoTime();
+        private final long deadline = unloaded + TimeUnit.MILLISECONDS.toNanos(Long.getLong("modularitea.modules.leakCheckDelay", 30_000L));
+
+        LeakCheck(String module, ClassLoader loader) {
+            this.module = module;
+            this.loader = new WeakReference<>(loader);
+        }
+    }
+
+    @SneakyThrows
+    private static ModuleIndex.Entry scan(File file) {
+        return ModuleIndex.scan(file);
+    }
+
+    @SneakyThrows
+    private Manifest readManifest(File file, ModuleIndex index) {
+        try (BootProfiler.Span ignored = BootProfiler.getInstance().span("module", file.getName(), "jar")) {
+            return new Manifest(file, index.get(file));
+        }
+    }
+
+    /**
+     * Kahn's algorithm, grouping modules into levels. Dependencies found in 'loaded' count as satisfied.
+     */
+    private List<List<Manifest>> sortByDependencies(List<Manifest> found, Map<String, Manifest> loaded, boolean report) {
+        Map<String, Manifest> byName = new HashMap<>();
+        for (Manifest manifest : found) {
+            boolean duplicate = byName.putIfAbsent(manifest.getName().toLowerCase(), manifest) != null
+                    || loaded.containsKey(manifest.getName().toLowerCase());
+            if (duplicate && report)
+                System.err.println("Duplicate module name " + manifest.getName() + " in " + manifest.getFile().getName() + ", ignoring it");
+            if (duplicate && byName.get(manifest.getName().toLowerCase()) == manifest) byName.remove(manifest.getName().toLowerCase());
+        }
+
+        Map<Manifest, Integer> pending = new LinkedHashMap<>(); // Unresolved dependency count
+        Map<Manifest, List<Manifest>> dependents = new HashMap<>();
+        for (Manifest manifest : byName.values()) {
+            int count = 0;
+            for (String depName : manifest.getDependencies()) {
+                Manifest dep = byName.get(depName.toLowerCase());
+                if (dep == null) {
+                    if (report && !loaded.containsKey(depName.toLowerCase()))
+                        System.err.println("Module " + manifest.getName() + " depends on missing module " + depName);
+                    continue;
+                }
+                dependents.computeIfAbsent(dep, d -> new ArrayList<>()).add(manifest);
+                count++;
+            }
+            pending.put(manifest, count);
+        }
+        // Keep the jar order within levels
+        List<Manifest> ordered = new ArrayList<>(found);
+        ordered.retainAll(pending.keySet());
+
+        List<List<Manifest>> sorted = new ArrayList<>();
+        List<Manifest> level = new ArrayList<>();
+        for (Manifest manifest : ordered) if (pending.get(manifest) == 0) level.add(manifest);
+        while (!level.isEmpty()) {
+            sorted.add(level);
+            Set<Manifest> next = new HashSet<>();
+            for (Manifest manifest : level) {
+                pending.remove(manifest);
+                for (Manifest dependent : dependents.getOrDefault(manifest, Collections.emptyList())) {
+                    if (pending.merge(dependent, -1, Integer::sum) == 0) next.add(dependent);
+                }
+            }
+            level = new ArrayList<>();
+            for (Manifest manifest : ordered) if (next.contains(manifest)) level.add(manifest);
+        }
+
+        if (!pending.isEmpty() && report) reportCycles(pending.keySet(), byName);
+        return sorted;
+    }
+
+    private void reportCycles(Set<Manifest> unresolved, Map<String, Manifest> byName) {
+        Set<Manifest> reported = new HashSet<>();
+        for (Manifest start : unresolved) {
+            if (reported.contains(start)) continue;
+            // Follow unresolved dependencies until a module repeats; that tail is a cycle
+            List<Manifest> path = new ArrayList<>();
+            Manifest current = start;
+            while (current != null && !path.contains(current) && !reported.contains(current)) {
+                path.add(current);
+                Manifest next = null;
+                for (String depName : current.getDependencies()) {
+                    Manifest dep = byName.get(depName.toLowerCase());
+                    if (dep != null && unresolved.contains(dep)) { next = dep; break; }
+                }
+                current = next;
+            }
+            if (current != null && path.contains(current)) {
+                StringBuilder cycle = new StringBuilder();
+                for (Manifest m : path.subList(path.indexOf(current), path.size())) cycle.append(m.getName()).append(" -> ");
+                System.err.println("Module dependency cycle: " + cycle + current.getName());
+            }
+            reported.addAll(path);
+        }
+        List<String> names = new ArrayList<>();
+        for (Manifest manifest : unresolved) names.add(manifest.getName());
+        System.err.println("Not loading modules on or depending on a cycle: " + String.join(", ", names));
+    }
+
+    @SneakyThrows
+    private void linkModuleLoader(Manifest manifest) {
+        List<ClassLoader> dependencies = new ArrayList<>();
+        for (String depName : manifest.getDependencies()) {
+            Manifest dep = getModuleWithName(depName);
+            if (dep != null && dep.getClassLoader() != null) dependencies.add(dep.getClassLoader());
+        }
+        try (BootProfiler.Span ignored = BootProfiler.getInstance().span("module", manifest.getName(), "classloader")) {
+            manifest.initLoader(ModuleManager.class.getClassLoader(), dependencies);
+        }
+    }
+
+    public void invokePrimaries(){ runLevels(m -> m.getModule().invokePrimary()); }
+    public void invokeSecondaries(){ runLevels(m -> m.getModule().invokeSecondary()); }
+    public void invokeTertiaries(){ runLevels(m -> m.getModule().invokeTertiary()); }
+
+    private void runLevels(Consumer<Manifest> action) {
+        for (List<Manifest> level : levels) runLevel(level, action);
+    }
+
+    /**
+     * Applies the action to every module of a level, in parallel unless sequential mode is on, and
+     * waits for all of them. The first failure is rethrown once the whole level is done.
+     */
+    @SneakyThrows
+    private void runLevel(List<Manifest> level, Consumer<Manifest> action) {
+        if (!parallel || level.size() == 1) {
+            level.forEach(action);
+            return;
+        }
+        List<CompletableFuture<?>> runs = new ArrayList<>();
+        for (Manifest manifest : level) runs.add(CompletableFuture.runAsync(() -> action.accept(manifest), executor()));
+        try {
+            CompletableFuture.allOf(runs.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Executor executor() {
+        if (!parallel) return Runnable::run;
+        if (loaderPool == null) {
+            synchronized (this) {
+                if (loaderPool == null) {
+                    // Jar reads and entrypoints mostly wait on I/O, so don't cap at the core count
+                    loaderPool = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()), pool -> {
+                        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                        t.setName("ModuleLoader-" + t.getPoolIndex());
+                        t.setDaemon(true);
+                        return t;
+                    }, null, false);
+                }
+            }
+        }
+        return loaderPool;
+    }
+
+    /**
+     * Runs every started module's shutdownEntrypoint in reverse 'depends' order: a module is stopped
+     * only after all modules depending on it have stopped, while unrelated modules stop in parallel.
+     * Pending configuration changes are flushed before and after. A shutdownEntrypoint that throws
+     * is reported and does not hold back the modules it depends on.
+     * @return the modules that had not finished stopping when the deadline passed and those that failed
+     */
+    public ShutdownReport shutdown(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        configuration.flush();
+        if (watcher != null) watcher.close();
+        List<Manifest> manifests = this.manifests;
+        ExecutorService pool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "ModuleShutdown");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Map<Manifest, CompletableFuture<Void>> stops = new LinkedHashMap<>();
+        List<String> failed = Collections.synchronizedList(new ArrayList<>());
+        manifests.forEach(m -> scheduleStop(m, stops, new HashSet<>(), pool, failed));
+
+        try {
+            CompletableFuture.allOf(stops.values().toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException ignored) {
+            // Stragglers are reported below, failures already were
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<String> missed = new ArrayList<>();
+        stops.forEach((m, f) -> { if (!f.isDone()) missed.add(m.getAttributes().getProperty("name")); });
+        pool.shutdownNow();
+        if (loaderPool != null) loaderPool.shutdown();
+        configuration.close(); // Whatever modules changed while stopping
+        synchronized (failed) {
+            return new ShutdownReport(missed, new ArrayList<>(failed));
+        }
+    }
+
+    private CompletableFuture<Void> scheduleStop(Manifest manifest, Map<Manifest, CompletableFuture<Void>> stops,
+                                                 Set<Manifest> visiting, Executor pool, List<String> failed) {
+        List<Manifest> manifests = this.manifests;
+        CompletableFuture<Void> scheduled = stops.get(manifest);
+        if (scheduled != null) return scheduled;
+        visiting.add(manifest);
+
+        String name = manifest.getAttributes().getProperty("name");
+        List<CompletableFuture<Void>> dependents = new ArrayList<>();
+        for (Manifest other : manifests) {
+            if (other.dependsOn(name) && !visiting.contains(other))
+                dependents.add(scheduleStop(other, stops, visiting, pool, failed));
+        }
+        visiting.remove(manifest);
+
+        CompletableFuture<Void> stop = CompletableFuture.allOf(dependents.toArray(new CompletableFuture[0]))
+                .handle((ignored, failure) -> null)
+                .thenRunAsync(() -> { if (manifest.module != null) manifest.module.invokeShutdown(); }, pool)
+                .handle((ignored, failure) -> {
+                    if (failure != null) {
+                        System.err.println("Module " + name + " failed to shut down");
+                        (failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure).printStackTrace();
+                        failed.add(name);
+                    }
+                    return null;
+                });
+        stops.put(manifest, stop);
+        return stop;
+    }
+
+    /**
+     * Outcome of {@link #shutdown(long, TimeUnit)}, by module name.
+     */
+    @Getter
+    public static class ShutdownReport {
+        private final List<String> missed; // Still stopping when the deadline passed
+        private final List<String> failed; // shutdownEntrypoint threw
+
+        ShutdownReport(List<String> missed, List<String> failed) {
+            this.missed = Collections.unmodifiableList(missed);
+            this.failed = Collections.unmodifiableList(failed);
+        }
+
+        public boolean isClean() {
+            return missed.isEmpty() && failed.isEmpty();
+        }
+    }
+
+    /**
+     * Closes the class loaders of every module not listed in 'skip' (e.g. modules still stopping).
+     */
+    public void closeClassLoaders(Collection<String> skip) {
+        List<Manifest> manifests = this.manifests;
+        for (int i = manifests.size() - 1; i >= 0; i--) {
+            Manifest manifest = manifests.get(i);
+            if (manifest.getClassLoader() == null || skip.contains(manifest.getAttributes().getProperty("name"))) continue;
+            try {
+                manifest.getClassLoader().close();
+            } catch (Exception e) {
+                System.err.println("Failed to close class loader of module " + manifest.getAttributes().getProperty("name"));
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @CommandManager.Command(name = "modules", description = "Lists loaded modules with class loading statistics")
+    private void modulesCommand(CommandManager.CommandSender sender) {
+        List<Manifest> manifests = this.manifests;
+        sender.sendMessage(manifests.size() + " module(s):");
+        for (Manifest manifest : manifests) {
+            StringBuilder line = new StringBuilder(manifest.getName()).append(' ')
+                    .append(manifest.getAttributes().getProperty("version", "?"));
+            if (manifest.module != null && manifest.module.isExcluded()) line.append(" [excluded]");
+            if (manifest.getClassLoader() instanceof ModuleClassLoader) {
+                ModuleClassLoader loader = (ModuleClassLoader) manifest.getClassLoader();
+                line.append(String.format(" | classes=%d in %.1f ms (p99 %d us) | from dependencies=%d",
+                        loader.getLoadedClassCount(), loader.getDefineNanos() / 1e6,
+                        TimeUnit.NANOSECONDS.toMicros(loader.getDefineTimes().getValueAtPercentile(99)),
+                        loader.getDelegatedCount()));
+            }
+            sender.sendMessage(line.toString());
+        }
+        packages.getSplitPackages().forEach((pkg, owners) ->
+                sender.sendMessage("Split package '" + pkg + "': " + String.join(", ", owners)));
+    }
+
+    public Manifest getModuleWithName(String name) {
+        return modulesByName.get(name.toLowerCase());
+    }
+
+    /**
+     * modules.properties, held in memory. Reads go to an immutable snapshot and never lock; set()
+     * swaps in a new snapshot, notifies listeners on the calling thread and schedules a write. Bursts
+     * of changes within -Dmodularitea.config.coalesce ms (default 200) become a single write to a temp
+     * file that is fsynced and atomically renamed over the original, so a crash leaves either the old
+     * or the new file, never a truncated one. Writing happens outside the lock set() takes, so a slow
+     * disk never blocks changes.
+     */
+    public static class Configuration implements Closeable {
+        @Getter private final File propertiesFile;
+        private volatile Map<String, String> values;
+        private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+        private final long coalesceMillis = Long.getLong("modularitea.config.coalesce", 200L);
+        private final ScheduledExecutorService writer;
+        private final AtomicBoolean writeScheduled = new AtomicBoolean();
+        private final Object fileLock = new Object(); // Orders writes; never held by set()
+        private boolean dirty;                        // Guarded by this
+        private volatile boolean closed;
+
+        @FunctionalInterface
+        public interface ChangeListener {
+            /** oldValue is null for new keys, newValue is null for removed ones. */
+            void changed(String key, String oldValue, String newValue);
+        }
+
+        @SneakyThrows
+        public Configuration(File file){
+            this.propertiesFile = file;
+            this.propertiesFile.getParentFile().mkdirs();
+            this.propertiesFile.createNewFile();
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(propertiesFile.toPath())) {
+                properties.load(in);
+            }
+            Map<String, String> loaded = new HashMap<>();
+            for (String key : properties.stringPropertyNames()) loaded.put(key, properties.getProperty(key));
+            this.values = Collections.unmodifiableMap(loaded);
+
+            this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ConfigWriter");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        public String get(String path) {
+            return values.get(path);
+        }
+
+        public String get(String path, String defaultValue) {
+            String value = values.get(path);
+            return value != null ? value : defaultValue;
+        }
+
+        /**
+         * A copy of the current values.
+         */
+        public Properties getProperties() {
+            Properties properties = new Properties();
+            properties.putAll(values);
+            return properties;
+        }
+
+        public String set(String path, String value){
+            if (value == null) {
+                remove(path);
+                return null;
+            }
+            update(path, value);
+            return value;
+        }
+
+        public void remove(String path) {
+            update(path, null);
+        }
+
+        private void update(String path, String value) {
+            String old;
+            synchronized (this) {
+                old = values.get(path);
+                if (Objects.equals(old, value)) return;
+                Map<String, String> next = new HashMap<>(values);
+                if (value == null) next.remove(path);
+                else next.put(path, value);
+                values = Collections.unmodifiableMap(next);
+                dirty = true;
+            }
+            scheduleWrite();
+            for (ChangeListener listener : listeners) {
+                try {
+                    listener.changed(path, old, value);
+                } catch (Throwable t) {
+                    System.err.println("Configuration listener failed for " + path);
+                    t.printStackTrace();
+                }
+            }
+        }
+
+        public void addListener(ChangeListener listener) {
+            listeners.add(listener);
+        }
+
+        public void removeListener(ChangeListener listener) {
+            listeners.remove(listener);
+        }
+
+        private void scheduleWrite() {
+            if (closed) {
+                flush();
+                return;
+            }
+            if (!writeScheduled.compareAndSet(false, true)) return; // Coalesced into the pending write
+            try {
+                writer.schedule(() -> {
+                    writeScheduled.set(false);
+                    flush();
+                }, coalesceMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                writeScheduled.set(false);
+                flush(); // Closed: write synchronously
+            }
+        }
+
+        /**
+         * Writes pending changes now, on the calling thread.
+         */
+        public void flush() {
+            synchronized (fileLock) {
+                Properties properties;
+                synchronized (this) {
+                    if (!dirty) return;
+                    dirty = false;
+                    properties = getProperties();
+                }
+                write(properties);
+            }
+        }
+
+        private void write(Properties properties) {
+            File temp = new File(propertiesFile.getParentFile(), propertiesFile.getName() + ".tmp");
+            try {
+                try (FileOutputStream out = new FileOutputStream(temp)) {
+                    properties.store(out, null);
+                    out.getFD().sync();
+                }
+                try {
+                    Files.move(temp.toPath(), propertiesFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), propertiesFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    dirty = true; // Retried with the next change or flush
+                }
+                System.err.println("Failed to write " + propertiesFile.getName());
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Flushes and stops the writer; later changes are written synchronously.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            flush();
+            writer.shutdownNow(); // Drops a pending write, if any...
+            writeScheduled.set(false);
+            flush();              // ...and covers it along with changes made meanwhile
+        }
+    }
+
+    public class Manifest implements Serializable {
+        @Getter private Properties attributes;
+        @Getter transient private File file;
+        @Getter transient private URLClassLoader classLoader;
+
+        transient private List<String> dependencies;
+
+        private Module module;
+
+        transient private ModuleIndex.Entry indexed;
+
+        public Manifest(File file) {
+            this(file, scan(file));
+        }
+
+        Manifest(File file, ModuleIndex.Entry indexed) {
+            this.file = file;
+            this.attributes = indexed.attributes;
+            this.indexed = indexed;
+        }
+
+        public String getName() {
+            return attributes.getProperty("name");
+        }
+
+        /**
+         * Module names from the comma separated 'depends' attribute.
+         */
+        public List<String> getDependencies() {
+            if (dependencies == null) {
+                List<String> names = new ArrayList<>();
+                for (String depName : attributes.getProperty("depends", "").split(",")) {
+                    if (!depName.trim().isEmpty()) names.add(depName.trim());
+                }
+                dependencies = Collections.unmodifiableList(names);
+            }
+            return dependencies;
+        }
+
+        public boolean dependsOn(String name) {
+            for (String depName : getDependencies()) if (depName.equalsIgnoreCase(name)) return true;
+            return false;
+        }
+
+        public Module getModule() {
+            if (module == null) module = new Module(this);
+            return module;
+        }
+
+        public URLClassLoader initLoader(ClassLoader parent) throws IOException {
+            return initLoader(parent, Collections.emptyList());
+        }
+
+        /**
+         * @param dependencies loaders of the modules this one depends on, see {@link ModuleClassLoader}
+         */
+        public URLClassLoader initLoader(ClassLoader parent, List<ClassLoader> dependencies) throws IOException {
+            if (this.classLoader == null)
+                this.classLoader = new ModuleClassLoader(getName(), file, parent, dependencies, packages);
+            return this.classLoader;
+        }
+    }
+
+    public class Module {
+        @Getter private Manifest manifest;
+        @Getter private Object instance;
+        @Getter private boolean excluded;
+        @Getter private String exclusionKey;
+
+        private Set<String> executedEntrypoints = ConcurrentHashMap.newKeySet();
+
+        @SneakyThrows
+        public Module(Manifest manifest){
+            this.manifest = manifest;
+
+            this.exclusionKey = String.join(".", "module",
+                    manifest.getAttributes().getProperty("name"),
+                    manifest.getAttributes().getProperty("version"),
+                    manifest.getAttributes().getProperty("author"),
+                    "exclude"
+            );
+
+            this.excluded = Boolean.parseBoolean(configuration.get(this.exclusionKey, "false"));
+
+            if (this.instance == null) {
+                String mainClass = manifest.getAttributes().getProperty("main");
+                BootProfiler profiler = BootProfiler.getInstance();
+                Class<?> type;
+                try (BootProfiler.Span ignored = profiler.span("module", manifest.getName(), "classload")) {
+                    type = Class.forName(mainClass, true, manifest.getClassLoader());
+                }
+                try (BootProfiler.Span ignored = profiler.span("module", manifest.getName(), "constructor")) {
+                    this.instance = type.getConstructor().newInstance();
+                }
+            }
+
+        }
+
+        @SneakyThrows
+        public Object load(String entrypoint){
+            if(excluded || executedEntrypoints.contains(entrypoint)) return null;
+
+            for (String depName : manifest.getDependencies()) {
+                Manifest dep = getModuleWithName(depName);
+                if (dep != null) dep.getModule().load(entrypoint);
+            }
+
+            Object o;
+            try (BootProfiler.Span ignored = BootProfiler.getInstance().span("module", manifest.getName(), entrypoint)) {
+                o = ModuleManager.invoke(entrypoint, instance);
+            }
+            executedEntrypoints.add(entrypoint);
+            return o;
+        }
+
+        public void invokePrimary() { load("primaryEntrypoint"); }
+        public void invokeSecondary() { load("secondaryEntrypoint"); }
+        public void invokeTertiary() { load("tertiaryEntrypoint"); }
+
+        /**
+         * Unlike the start-up entrypoints this does not cascade into dependencies; ordering is
+         * handled by {@link ModuleManager#shutdown}.
+         */
+        @SneakyThrows
+        public void invokeShutdown() {
+            if (excluded || executedEntrypoints.isEmpty()) return;
+            ModuleManager.invoke("shutdownEntrypoint", instance);
+        }
+    }
+
+    public interface JavaModule{
+        void primaryEntrypoint();
+        void secondaryEntrypoint();
+        void tertiaryEntrypoint();
+        default void shutdownEntrypoint() {}
+    }
+
+    @SneakyThrows
+    private static Object invoke(String methodName, Object instance) {
+        try {
+            Method m = instance.getClass().getDeclaredMethod(methodName);
+            m.setAccessible(true);
+            return m.invoke(instance);
+        } catch (NoSuchMethodException e) {
+        }
+        return null;
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Watches a modules directory and hands changed jars to {@link ModuleManager#reload(Collection)} in
+ * batches: a jar is only passed on once no event has been seen for it for the quiet period and its
+ * size stopped changing, so a jar that is still being copied is not loaded half-written.
+ */
+class ModuleWatcher implements Closeable {
+
+    private static final long POLL_MILLIS = 250;
+
+    private final ModuleManager manager;
+    private final File directory;
+    private final Settling settling;
+    private final WatchService service;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    ModuleWatcher(ModuleManager manager, File directory, long quietMillis) throws IOException {
+        this.manager = manager;
+        this.directory = directory;
+        this.settling = new Settling(TimeUnit.MILLISECONDS.toNanos(quietMillis));
+        this.service = FileSystems.getDefault().newWatchService();
+        directory.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        this.thread = new Thread(this::loop, "ModuleWatcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                WatchKey key = service.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            rescanAll();
+                            continue;
+                        }
+                        String name = event.context().toString();
+                        if (name.endsWith(".jar")) touched(name);
+                    }
+                    key.reset();
+                }
+
+                List<File> settled = new ArrayList<>();
+                for (String name : settling.settled(this::size, System.nanoTime())) settled.add(new File(directory, name));
+                if (!settled.isEmpty()) manager.reload(settled);
+                manager.checkLeaks();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (Throwable t) {
+                System.err.println("Module watcher failed to process a change");
+                t.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Events were lost; treat every jar as possibly changed (unchanged ones hit the index and still reload).
+     */
+    private void rescanAll() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".jar"));
+        if (files == null) return;
+        for (File file : files) touched(file.getName());
+    }
+
+    private void touched(String name) {
+        settling.touched(name, size(name), System.nanoTime());
+    }
+
+    private long size(String name) {
+        File jar = new File(directory, name);
+        return jar.isFile() ? jar.length() : -1;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            service.close();
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The quiet period bookkeeping of the watcher thread, on a clock passed in by the caller.
+     */
+    static final class Settling {
+        private final long quietNanos;
+        private final Map<String, Long> lastEvent = new HashMap<>(); // Jar name -> time of the last event
+        private final Map<String, Long> lastSize = new HashMap<>(); // Jar name -> size at the last event or check
+
+        Settling(long quietNanos) {
+            this.quietNanos = quietNanos;
+        }
+
+        /**
+         * @param size the jar's size, -1 if it doesn't exist
+         */
+        void touched(String name, long size, long now) {
+            lastEvent.put(name, now);
+            lastSize.put(name, size);
+        }
+
+        /**
+         * @return the jars that have been quiet for the quiet period and whose size stopped changing;
+         * they are forgotten until touched again
+         */
+        List<String> settled(ToLongFunction<String> size, long now) {
+            List<String> settled = new ArrayList<>();
+            for (Iterator<Map.Entry<String, Long>> it = lastEvent.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Long> entry = it.next();
+                if (now - entry.getValue() < quietNanos) continue;
+
+                long current = size.applyAsLong(entry.getKey());
+                if (lastSize.put(entry.getKey(), current) != current) {
+                    entry.setValue(now); // Still being written without events: wait another quiet period
+                    continue;
+                }
+                lastSize.remove(entry.getKey());
+                it.remove();
+                settled.add(entry.getKey());
+            }
+            return settled;
+        }
+    }
+}
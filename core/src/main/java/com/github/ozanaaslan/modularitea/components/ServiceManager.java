@@ -0,0 +1,588 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Getter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+public class ServiceManager {
+    @Getter private static final ServiceManager instance = new ServiceManager();
+    // Every registered type and each of its supertypes -> the bindings assignable to it. Arrays are
+    // replaced, never mutated, so lookups read them without locking.
+    private final Map<Class<?>, Binding[]> index = new ConcurrentHashMap<>();
+    private final ClassValue<InjectionPoint[]> injectionPlans = new ClassValue<InjectionPoint[]>() {
+        @Override
+        protected InjectionPoint[] computeValue(Class<?> type) {
+            return planInjection(type);
+        }
+    };
+    private volatile ForkJoinPool builders; // Parallel bean construction; created on first use
+
+    private ServiceManager() {}
+
+    /**
+     * A registered bean: its declared type, lowercased name, the bean itself or its {@link BeanHolder},
+     * and the class loader it belongs to (see {@link #unregisterAll(ClassLoader)}).
+     */
+    private static final class Binding {
+        private final Class<?> type;
+        private final String name;
+        private final Object bean;
+        private final ClassLoader owner;
+
+        Binding(Class<?> type, String name, Object bean, ClassLoader owner) {
+            this.type = type;
+            this.name = name;
+            this.bean = bean;
+            this.owner = owner;
+        }
+    }
+
+    public <T> void register(Class<?> type, String name, Object implementation) {
+        bind(new Binding(type, name.toLowerCase(), implementation, implementation.getClass().getClassLoader()));
+    }
+
+    /**
+     * Registers a bean created on demand by the factory, according to the scope: once on first
+     * lookup (SINGLETON), on every lookup (PROTOTYPE) or once per thread (THREAD).
+     */
+    public <T> void register(Class<T> type, String name, Scope scope, Supplier<? extends T> factory) {
+        bind(new Binding(type, name.toLowerCase(), BeanHolder.of(scope, factory), type.getClassLoader()));
+    }
+
+    /**
+     * Adds the binding under its type and every supertype, replacing a binding with the same type and name.
+     */
+    private synchronized void bind(Binding binding) {
+        for (Class<?> type : supertypesOf(binding.type)) {
+            Binding[] current = index.get(type);
+            List<Binding> updated = new ArrayList<>(current == null ? 1 : current.length + 1);
+            if (current != null) {
+                for (Binding existing : current) {
+                    if (existing.type != binding.type || !existing.name.equals(binding.name)) updated.add(existing);
+                }
+            }
+            updated.add(binding);
+            index.put(type, updated.toArray(new Binding[0]));
+        }
+    }
+
+    /**
+     * Removes every bean registered by a provider from the given loader, or whose type or class it
+     * defined, e.g. before a module is unloaded.
+     * @return true if anything was removed
+     */
+    public synchronized boolean unregisterAll(ClassLoader classLoader) {
+        boolean removed = false;
+        for (Iterator<Map.Entry<Class<?>, Binding[]>> it = index.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Class<?>, Binding[]> entry = it.next();
+            List<Binding> kept = new ArrayList<>();
+            for (Binding binding : entry.getValue()) {
+                boolean owned = binding.owner == classLoader || binding.type.getClassLoader() == classLoader
+                        || binding.bean != null && binding.bean.getClass().getClassLoader() == classLoader;
+                if (!owned) kept.add(binding);
+            }
+            if (kept.size() == entry.getValue().length) continue;
+            removed = true;
+            if (kept.isEmpty()) it.remove();
+            else entry.setValue(kept.toArray(new Binding[0]));
+        }
+        return removed;
+    }
+
+    private static Set<Class<?>> supertypesOf(Class<?> type) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add(type);
+        while (!queue.isEmpty()) {
+            Class<?> current = queue.poll();
+            if (current == Object.class && type != Object.class || !types.add(current)) continue;
+            if (current.getSuperclass() != null) queue.add(current.getSuperclass());
+            Collections.addAll(queue, current.getInterfaces());
+        }
+        return types;
+    }
+
+    /**
+     * Finds a bean assignable to the type. With a name, only a bean of that name (case-insensitive)
+     * matches; without one, the type alone must identify a single bean. When several beans qualify, one
+     * registered under exactly this type wins. Doesn't allocate, except to create a lazy bean.
+     *
+     * @return the bean, or null if none matches
+     * @throws IllegalStateException if several beans match equally well
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T lookup(Class<T> type, String name) {
+        Binding binding = find(type, name);
+        return binding == null ? null : (T) unwrap(binding.bean);
+    }
+
+    private Binding find(Class<?> type, String name) {
+        Binding[] bindings = index.get(type);
+        if (bindings == null) return null;
+
+        Binding match = null;
+        int matches = 0;
+        for (Binding binding : bindings) {
+            if (name != null && !binding.name.equalsIgnoreCase(name)) continue;
+            if (binding.type == type) return binding;
+            match = binding;
+            matches++;
+        }
+        if (matches > 1) {
+            throw new IllegalStateException(describeAmbiguity(type, name, bindings));
+        }
+        return match;
+    }
+
+    private static String describeAmbiguity(Class<?> type, String name, Binding[] bindings) {
+        StringBuilder message = new StringBuilder("Ambiguous service ").append(type.getName());
+        if (name != null) message.append(" named '").append(name).append('\'');
+        message.append(", candidates:");
+        for (Binding binding : bindings) {
+            if (name == null || binding.name.equalsIgnoreCase(name)) {
+                message.append(' ').append(binding.type.getSimpleName()).append('#').append(binding.name);
+            }
+        }
+        return message.toString();
+    }
+
+    private static Object unwrap(Object stored) {
+        return stored instanceof BeanHolder ? ((BeanHolder) stored).get() : stored;
+    }
+
+    /**
+     * Registers the provider's @ServiceBean fields and methods. Bean methods may take other beans as
+     * parameters - produced by the same provider or already registered - and are invoked in dependency
+     * order, with independent beans built in parallel. A parameter is matched by type, and by name only
+     * when it carries {@code @InjectService("name")}; parameter names are never used, so the result
+     * doesn't depend on -parameters or on whether the provider has a generated descriptor. Beans on a
+     * cycle, or depending on a bean that could not be built, are skipped with an error. The members
+     * come from the provider's generated {@link ClassDescriptor} when it has one.
+     */
+    public void registerBeans(Object provider) {
+        ClassDescriptor descriptor = ClassDescriptor.of(provider.getClass());
+        List<ClassDescriptor.BeanMember> members = descriptor != null ? descriptor.getBeans() : scanBeans(provider.getClass());
+
+        // 1. Process Fields (already built, so methods can depend on them)
+        for (ClassDescriptor.BeanMember member : members) {
+            if (!member.isField()) continue;
+            try {
+                ClassDescriptor.Invoker reader = member.getInvoker() != null ? member.getInvoker()
+                        : ClassDescriptor.read(provider.getClass().getDeclaredField(member.getMember()));
+                Object bean = reader.invoke(provider, null);
+                bind(new Binding(member.getType(), member.getName().toLowerCase(), bean, provider.getClass().getClassLoader()));
+            } catch (Throwable e) { e.printStackTrace(); }
+        }
+
+        // 2. Process Methods
+        List<BeanNode> nodes = new ArrayList<>();
+        for (ClassDescriptor.BeanMember member : members) {
+            if (member.isField()) continue;
+            ClassDescriptor.Invoker invoker = member.getInvoker();
+            if (invoker == null) {
+                try {
+                    invoker = ClassDescriptor.reflect(provider.getClass().getDeclaredMethod(member.getMember(), member.getParameterTypes()));
+                } catch (NoSuchMethodException e) {
+                    System.err.println("Failed to create bean " + member.getName() + ": " + e);
+                    continue;
+                }
+            }
+            nodes.add(new BeanNode(member, invoker));
+        }
+        if (nodes.isEmpty()) return;
+
+        for (BeanNode node : nodes) node.resolve(nodes);
+
+        Executor executor = nodes.size() > 1 ? getBuilders() : Runnable::run;
+        Map<BeanNode, CompletableFuture<Object>> builds = new LinkedHashMap<>();
+        for (BeanNode node : nodes) scheduleBuild(provider, node, builds, new LinkedHashSet<>(), executor);
+
+        try {
+            CompletableFuture.allOf(builds.values().toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException ignored) {
+            // Each failure was already reported where it happened
+        }
+    }
+
+    private static List<ClassDescriptor.BeanMember> scanBeans(Class<?> type) {
+        List<ClassDescriptor.BeanMember> beans = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            ServiceBean anno = field.getAnnotation(ServiceBean.class);
+            if (anno == null) continue;
+            beans.add(ClassDescriptor.BeanMember.builder()
+                    .member(field.getName())
+                    .field(true)
+                    // Use annotation value if set, otherwise use field name
+                    .name(anno.value().isEmpty() ? field.getName() : anno.value())
+                    .type(field.getType())
+                    .scope(Scope.SINGLETON)
+                    .parameterTypes(new Class<?>[0])
+                    .qualifiers(new String[0])
+                    .invoker(ClassDescriptor.read(field))
+                    .build());
+        }
+        for (Method method : type.getDeclaredMethods()) {
+            ServiceBean anno = method.getAnnotation(ServiceBean.class);
+            if (anno == null) continue;
+            Parameter[] parameters = method.getParameters();
+            String[] qualifiers = new String[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                InjectService inject = parameters[i].getAnnotation(InjectService.class);
+                qualifiers[i] = inject != null && !inject.value().isEmpty() ? inject.value() : null;
+            }
+            beans.add(ClassDescriptor.BeanMember.builder()
+                    .member(method.getName())
+                    // Use annotation value if set, otherwise use method name
+                    .name(anno.value().isEmpty() ? method.getName() : anno.value())
+                    .type(method.getReturnType())
+                    .lazy(anno.lazy())
+                    .scope(anno.scope())
+                    .parameterTypes(method.getParameterTypes())
+                    .qualifiers(qualifiers)
+                    .invoker(ClassDescriptor.reflect(method))
+                    .build());
+        }
+        return beans;
+    }
+
+    private CompletableFuture<Object> scheduleBuild(Object provider, BeanNode node, Map<BeanNode, CompletableFuture<Object>> builds,
+                                                    LinkedHashSet<BeanNode> path, Executor executor) {
+        CompletableFuture<Object> scheduled = builds.get(node);
+        if (scheduled != null) return scheduled;
+
+        if (!path.add(node)) {
+            StringBuilder cycle = new StringBuilder();
+            boolean inCycle = false;
+            for (BeanNode n : path) {
+                if (n == node) inCycle = true;
+                if (inCycle) cycle.append(n.name).append(" -> ");
+            }
+            System.err.println("Bean dependency cycle: " + cycle + node.name);
+            return failed(new IllegalStateException("Dependency cycle at bean " + node.name));
+        }
+
+        CompletableFuture<Object> build;
+        if (node.error != null) {
+            System.err.println("Failed to create bean " + node.name + ": " + node.error);
+            build = failed(new IllegalStateException(node.error));
+        } else {
+            // Per parameter, null for external ones; handed to the node so workers never read 'builds'
+            @SuppressWarnings("unchecked")
+            CompletableFuture<Object>[] dependencies = new CompletableFuture[node.dependencies.length];
+            for (int i = 0; i < dependencies.length; i++) {
+                if (node.dependencies[i] != null) dependencies[i] = scheduleBuild(provider, node.dependencies[i], builds, path, executor);
+            }
+            build = CompletableFuture.allOf(Arrays.stream(dependencies).filter(Objects::nonNull).toArray(CompletableFuture[]::new))
+                    .handle((ignored, failure) -> failure)
+                    .thenApplyAsync(failure -> {
+                        if (failure != null) {
+                            System.err.println("Skipping bean " + node.name + ": a dependency could not be created");
+                            throw new CompletionException(failure);
+                        }
+                        return node.build(provider, dependencies);
+                    }, executor);
+        }
+        path.remove(node);
+        builds.put(node, build);
+        return build;
+    }
+
+    private static CompletableFuture<Object> failed(Throwable failure) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        future.completeExceptionally(failure);
+        return future;
+    }
+
+    private ForkJoinPool getBuilders() {
+        if (builders == null) {
+            synchronized (this) {
+                if (builders == null) {
+                    // Factories typically block on I/O (connections, cache warm-up), so don't cap at the core count
+                    builders = new ForkJoinPool(Math.max(4, Runtime.getRuntime().availableProcessors()), pool -> {
+                        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                        t.setName("ServiceBuilder-" + t.getPoolIndex());
+                        t.setDaemon(true);
+                        return t;
+                    }, null, false);
+                }
+            }
+        }
+        return builders;
+    }
+
+    /**
+     * A @ServiceBean method and where each of its parameters comes from: another bean method of the
+     * same provider (dependencies[i]) or an already registered service (external[i]).
+     */
+    private class BeanNode {
+        private final ClassDescriptor.BeanMember member;
+        private final ClassDescriptor.Invoker invoker;
+        private final String name;
+        private final BeanNode[] dependencies;
+        private final Object[] external;
+        private String error;
+
+        BeanNode(ClassDescriptor.BeanMember member, ClassDescriptor.Invoker invoker) {
+            this.member = member;
+            this.invoker = invoker;
+            this.name = member.getName();
+            this.dependencies = new BeanNode[member.getParameterTypes().length];
+            this.external = new Object[member.getParameterTypes().length];
+        }
+
+        void resolve(List<BeanNode> nodes) {
+            Class<?>[] parameters = member.getParameterTypes();
+            for (int i = 0; i < parameters.length && error == null; i++) {
+                Class<?> parameter = parameters[i];
+                String wanted = member.getQualifiers()[i];
+
+                List<BeanNode> producers = new ArrayList<>();
+                for (BeanNode node : nodes) {
+                    if (node != this && parameter.isAssignableFrom(node.member.getType())) producers.add(node);
+                }
+                dependencies[i] = pick(producers, n -> n.name, wanted);
+                if (dependencies[i] != null) continue;
+
+                Binding[] bindings = index.get(parameter);
+                Binding match = pick(bindings == null ? Collections.<Binding>emptyList() : Arrays.asList(bindings), b -> b.name, wanted);
+                if (match != null) {
+                    external[i] = match.bean; // May be a BeanHolder; unwrapped when the bean is created
+                } else if (error == null) {
+                    error = "no bean of type " + parameter.getName()
+                            + (wanted != null ? " named '" + wanted + "'" : "") + " for parameter " + i;
+                }
+            }
+        }
+
+        /**
+         * The only candidate, or the one whose name matches; anything else is ambiguous.
+         */
+        private <T> T pick(List<T> candidates, Function<T, String> nameOf, String wanted) {
+            if (wanted != null) {
+                for (T candidate : candidates) {
+                    if (nameOf.apply(candidate).equalsIgnoreCase(wanted)) return candidate;
+                }
+            }
+            if (candidates.size() == 1) return candidates.get(0);
+            if (candidates.size() > 1 && error == null) {
+                error = candidates.size() + " beans match parameter type; name one with @InjectService";
+            }
+            return null;
+        }
+
+        /**
+         * Creates the bean, or for lazy and non-singleton beans registers the holder that will.
+         * @param built per parameter, the completed build of the dependency; null for external ones
+         * @return what was registered: the bean itself or its holder
+         */
+        Object build(Object provider, CompletableFuture<Object>[] built) {
+            Object[] args = external.clone();
+            for (int i = 0; i < args.length; i++) {
+                if (built[i] != null) args[i] = built[i].join();
+            }
+
+            if (member.isLazy() || member.getScope() != Scope.SINGLETON) {
+                BeanHolder holder = BeanHolder.of(member.getScope(), () -> create(provider, args));
+                bind(new Binding(member.getType(), name.toLowerCase(), holder, provider.getClass().getClassLoader()));
+                return holder;
+            }
+            try {
+                Object bean = create(provider, args);
+                bind(new Binding(member.getType(), name.toLowerCase(), bean, provider.getClass().getClassLoader()));
+                return bean;
+            } catch (RuntimeException e) {
+                throw new CompletionException(e);
+            }
+        }
+
+        private Object create(Object provider, Object[] args) {
+            Object[] resolved = new Object[args.length];
+            for (int i = 0; i < args.length; i++) resolved[i] = unwrap(args[i]);
+            try {
+                return invoker.invoke(provider, resolved);
+            } catch (Throwable e) {
+                System.err.println("Failed to create bean " + name);
+                e.printStackTrace();
+                throw new IllegalStateException("Failed to create bean " + name, e);
+            }
+        }
+    }
+
+    /**
+     * Fills the target's @InjectService fields. A bean is matched by the field's type and the name from
+     * the annotation; with no name given, a bean named like the field is preferred, then any single
+     * bean of the type. A field typed {@link Provider} or {@link Supplier} receives a handle that looks
+     * the bean up on every get(), so lazy beans stay unbuilt until used and prototype or thread scoped
+     * beans are resolved per call. Which fields to inject is worked out once per class, from its
+     * generated {@link ClassDescriptor} when it has one.
+     */
+    public void inject(Object target) {
+        for (InjectionPoint point : injectionPlans.get(target.getClass())) {
+            try {
+                Object service = point.provider != null ? point.provider : point.resolve();
+                if (service != null) {
+                    point.writer.set(target, service);
+                }
+            } catch (Exception e) {
+                System.err.println("Failed to inject " + target.getClass().getSimpleName() + "#" + point.field);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private InjectionPoint[] planInjection(Class<?> type) {
+        ClassDescriptor descriptor = ClassDescriptor.of(type);
+        List<InjectionPoint> points = new ArrayList<>();
+        for (ClassDescriptor.InjectMember member : descriptor != null ? descriptor.getInjections() : scanInjections(type)) {
+            ClassDescriptor.FieldWriter writer = member.getWriter();
+            if (writer == null) {
+                try {
+                    writer = ClassDescriptor.write(type.getDeclaredField(member.getField()));
+                } catch (NoSuchFieldException e) {
+                    System.err.println("Cannot inject " + member.getField() + ": " + e);
+                    continue;
+                }
+            }
+            points.add(new InjectionPoint(member.getField(), writer, member.getBeanType(), member.getName(), member.isProvider()));
+        }
+        return points.toArray(new InjectionPoint[0]);
+    }
+
+    private static List<ClassDescriptor.InjectMember> scanInjections(Class<?> type) {
+        List<ClassDescriptor.InjectMember> injections = new ArrayList<>();
+        for (Field field : type.getDeclaredFields()) {
+            InjectService anno = field.getAnnotation(InjectService.class);
+            if (anno == null) continue;
+            boolean provider = field.getType() == Provider.class || field.getType() == Supplier.class;
+            Class<?> beanType = provider ? providedType(field) : field.getType();
+            if (beanType == null) {
+                System.err.println("Cannot inject " + field.getName() + ": provider type argument must be a class");
+                continue;
+            }
+            injections.add(ClassDescriptor.InjectMember.builder()
+                    .field(field.getName())
+                    .beanType(beanType)
+                    .name(anno.value().isEmpty() ? null : anno.value())
+                    .provider(provider)
+                    .writer(ClassDescriptor.write(field))
+                    .build());
+        }
+        return injections;
+    }
+
+    private final class InjectionPoint {
+        private final String field;
+        private final ClassDescriptor.FieldWriter writer;
+        private final Class<?> beanType;
+        private final String name; // Null: fall back from the field name to the type alone
+        private final Provider<Object> provider;
+
+        InjectionPoint(String field, ClassDescriptor.FieldWriter writer, Class<?> beanType, String name, boolean provider) {
+            this.field = field;
+            this.writer = writer;
+            this.beanType = beanType;
+            this.name = name;
+            this.provider = provider ? this::resolve : null;
+        }
+
+        Object resolve() {
+            if (name != null) return lookup(beanType, name);
+            Object bean = lookup(beanType, field);
+            return bean != null ? bean : lookup(beanType, null);
+        }
+    }
+
+    private static Class<?> providedType(Field field) {
+        Type generic = field.getGenericType();
+        if (!(generic instanceof ParameterizedType)) return null;
+        Type argument = ((ParameterizedType) generic).getActualTypeArguments()[0];
+        if (argument instanceof ParameterizedType) argument = ((ParameterizedType) argument).getRawType();
+        return argument instanceof Class ? (Class<?>) argument : null;
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.METHOD, ElementType.FIELD})
+    public @interface ServiceBean {
+        String value() default "";
+        /** Singleton beans only: create on first lookup instead of during registerBeans. Methods only. */
+        boolean lazy() default false;
+        /** Methods only; PROTOTYPE and THREAD beans are always created on demand. */
+        Scope scope() default Scope.SINGLETON;
+    }
+
+    public enum Scope {
+        /** One shared instance. */
+        SINGLETON,
+        /** A new instance for every lookup. */
+        PROTOTYPE,
+        /** One instance per thread. */
+        THREAD
+    }
+
+    /**
+     * Injectable handle to a bean, resolved on every get().
+     */
+    @FunctionalInterface
+    public interface Provider<T> extends Supplier<T> {
+    }
+
+    /**
+     * Creates a bean on demand; stored in the registry in place of the bean itself.
+     */
+    private static abstract class BeanHolder {
+        abstract Object get();
+
+        static BeanHolder of(Scope scope, Supplier<?> factory) {
+            switch (scope) {
+                case PROTOTYPE: return new BeanHolder() {
+                    @Override Object get() { return factory.get(); }
+                };
+                case THREAD: return new BeanHolder() {
+                    private final ThreadLocal<Object> instances = ThreadLocal.withInitial(factory);
+                    @Override Object get() { return instances.get(); }
+                };
+                default: return new LazyBean(factory);
+            }
+        }
+    }
+
+    private static final class LazyBean extends BeanHolder {
+        private final Supplier<?> factory;
+        private volatile Object instance;
+
+        LazyBean(Supplier<?> factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        Object get() {
+            Object bean = instance;
+            if (bean == null) {
+                synchronized (this) {
+                    bean = instance;
+                    if (bean == null) instance = bean = factory.get();
+                }
+            }
+            return bean;
+        }
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ElementType.FIELD, ElementType.PARAMETER})
+    public @interface InjectService {
+        String value() default "";
+    }
+}
\ No newline at end of file
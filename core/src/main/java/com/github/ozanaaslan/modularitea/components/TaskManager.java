@@ -0,0 +1,536 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Getter;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class TaskManager {
+
+    @Getter private static final TaskManager instance = new TaskManager();
+
+    /**
+     * Timing source behind @Task. A backend only fires one-shot triggers; TaskManager re-arms
+     * periodic tasks itself and runs them on its worker pool, so triggers must return quickly.
+     * Selected with -Dmodularitea.scheduler=executor|wheel or {@link #setBackend}.
+     */
+    public interface SchedulerBackend {
+        TimerHandle schedule(Runnable trigger, long delay, TimeUnit unit);
+        void shutdown();
+    }
+
+    public interface TimerHandle {
+        void cancel();
+    }
+
+    private volatile SchedulerBackend backend;
+    private final LongSupplier clock; // System.nanoTime scale
+
+    // Async tasks: work-stealing, FIFO per worker since tasks are independent fire-and-forget jobs
+    private final ForkJoinPool workers = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName("TaskWorker-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            },
+            null, true
+    );
+
+    // Sync tasks (@Task(async = false)) and runSync work; started on first use
+    private volatile TickLoop tickLoop;
+
+    private final Executor async; // The worker pool, unless replaced for tests
+
+    private final Map<Long, ScheduledTask> activeTasks = new ConcurrentHashMap<>();
+    private final AtomicLong nextTaskId = new AtomicLong(1);
+    private final Map<Long, AtomicLong> intervalGroups = new ConcurrentHashMap<>(); // Interval nanos -> tasks spread so far
+
+    private TaskManager() {
+        this(createBackend(), System::nanoTime, null);
+    }
+
+    /**
+     * A separate instance for tests, driven by the given backend and clock; async tasks run on
+     * 'async' instead of the worker pool unless it is null.
+     */
+    TaskManager(SchedulerBackend backend, LongSupplier clock, Executor async) {
+        this.backend = backend;
+        this.clock = clock;
+        this.async = async != null ? async : workers;
+    }
+
+    /**
+     * Annotation to mark a method for periodic execution.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.METHOD)
+    public @interface Task {
+        long delay() default 0;
+        long interval();
+        TimeUnit unit() default TimeUnit.SECONDS;
+        /** false: run on the single tick thread (see {@link #getTickLoop()}) instead of the worker pool. */
+        boolean async() default true;
+        /** What happens when a run takes longer than the interval. */
+        OverrunPolicy overrun() default OverrunPolicy.FIXED_RATE;
+        /**
+         * Opt-in: offset the first run so tasks sharing this interval don't all fire at the same
+         * instant. Off by default because it moves the first run past the declared delay.
+         */
+        boolean spread() default false;
+        /** Opt-in: stretch the interval exponentially (up to 64x) after 3 consecutive failures. */
+        boolean backoff() default false;
+    }
+
+    public enum OverrunPolicy {
+        /** Runs are planned at start + n * interval; late runs follow each other until caught up. */
+        FIXED_RATE,
+        /** The next run starts one interval after the previous one finished. */
+        FIXED_DELAY,
+        /** Runs stay on the fixed-rate grid; a slot whose previous run is still going is skipped. */
+        SKIP_IF_RUNNING,
+        /** Like FIXED_RATE, but all missed runs collapse into a single immediate run. */
+        COALESCE
+    }
+
+    private static final double GOLDEN_RATIO_FRACTION = 0.6180339887498949;
+    private static final int BACKOFF_THRESHOLD = 3;
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    /**
+     * Schedules an object's @Task methods, taken from its generated {@link ClassDescriptor} or
+     * found by scanning it.
+     */
+    public void register(Object listener) {
+        ClassDescriptor descriptor = ClassDescriptor.of(listener.getClass());
+        for (ClassDescriptor.TaskMember meta : descriptor != null ? descriptor.getTasks() : scan(listener.getClass())) {
+            if (meta.getInterval() <= 0) {
+                System.err.println("Task interval must be positive: " + meta.getMethod());
+                continue;
+            }
+            ClassDescriptor.Invoker invoker = meta.getInvoker();
+            if (invoker == null) {
+                try {
+                    invoker = ClassDescriptor.reflect(listener.getClass().getDeclaredMethod(meta.getMethod()));
+                } catch (NoSuchMethodException e) {
+                    System.err.println("Task method not found: " + meta.getMethod());
+                    continue;
+                }
+            }
+
+            long period = meta.getUnit().toNanos(meta.getInterval());
+            ScheduledTask task = new ScheduledTask(nextTaskId.getAndIncrement(), listener, meta.getMethod(), invoker, period,
+                    meta.isAsync() ? async : getTickLoop(), meta.getOverrun(), meta.isBackoff());
+            activeTasks.put(task.metrics.getId(), task);
+            task.start(meta.getUnit().toNanos(meta.getDelay()) + (meta.isSpread() ? phaseOffset(period) : 0));
+        }
+    }
+
+    private static List<ClassDescriptor.TaskMember> scan(Class<?> type) {
+        List<ClassDescriptor.TaskMember> tasks = new ArrayList<>();
+        for (Method method : type.getDeclaredMethods()) {
+            Task meta = method.getAnnotation(Task.class);
+            if (meta == null) continue;
+            if (method.getParameterCount() != 0) {
+                System.err.println("Task method must not take parameters: " + method.getName());
+                continue;
+            }
+            tasks.add(ClassDescriptor.TaskMember.builder()
+                    .method(method.getName())
+                    .delay(meta.delay())
+                    .interval(meta.interval())
+                    .unit(meta.unit())
+                    .async(meta.async())
+                    .overrun(meta.overrun())
+                    .spread(meta.spread())
+                    .backoff(meta.backoff())
+                    .invoker(ClassDescriptor.reflect(method))
+                    .build());
+        }
+        return tasks;
+    }
+
+    /**
+     * Deterministic phase for the n-th task registered with an interval: the golden-ratio sequence
+     * spreads any number of tasks evenly over min(interval, -Dmodularitea.tasks.maxSpread ms, default 10s).
+     * The first task of each interval keeps a zero offset.
+     */
+    private long phaseOffset(long period) {
+        long index = intervalGroups.computeIfAbsent(period, p -> new AtomicLong()).getAndIncrement();
+        long window = Math.min(period, TimeUnit.MILLISECONDS.toNanos(Long.getLong("modularitea.tasks.maxSpread", 10_000L)));
+        double fraction = (index * GOLDEN_RATIO_FRACTION) % 1.0;
+        return (long) (fraction * window);
+    }
+
+    /**
+     * The main tick loop behind sync tasks, started on first use. Tick length and budget come from
+     * -Dmodularitea.tick and -Dmodularitea.tick.budget (milliseconds, default 50 and 40).
+     */
+    public TickLoop getTickLoop() {
+        TickLoop current = this.tickLoop;
+        if (current != null) return current;
+        synchronized (this) {
+            if (this.tickLoop == null)
+                this.tickLoop = new TickLoop(Long.getLong("modularitea.tick", 50L), Long.getLong("modularitea.tick.budget", 40L), TimeUnit.MILLISECONDS);
+            return this.tickLoop;
+        }
+    }
+
+    /**
+     * Queues work for the next tick of the main loop.
+     */
+    public void runSync(Runnable task) {
+        getTickLoop().execute(task);
+    }
+
+    public <T> CompletableFuture<T> callSync(Callable<T> task) {
+        return getTickLoop().submit(task);
+    }
+
+    /**
+     * Live metrics of every scheduled task, ordered by id.
+     */
+    public List<TaskMetrics> getTaskMetrics() {
+        List<TaskMetrics> out = new ArrayList<>();
+        activeTasks.values().forEach(task -> out.add(task.metrics));
+        out.sort(Comparator.comparingLong(TaskMetrics::getId));
+        return out;
+    }
+
+    public TaskMetrics getTaskMetrics(long id) {
+        ScheduledTask task = activeTasks.get(id);
+        return task == null ? null : task.metrics;
+    }
+
+    /**
+     * Stops future runs of a task; a run already in progress finishes.
+     */
+    public boolean cancel(long id) {
+        ScheduledTask task = activeTasks.remove(id);
+        if (task != null) task.cancel();
+        return task != null;
+    }
+
+    /**
+     * Cancels every task whose listener was defined by the given loader, e.g. a module's classes.
+     * @return true if anything was cancelled
+     */
+    public boolean unregisterAll(ClassLoader classLoader) {
+        boolean removed = false;
+        for (Iterator<ScheduledTask> it = activeTasks.values().iterator(); it.hasNext(); ) {
+            ScheduledTask task = it.next();
+            if (task.listener.getClass().getClassLoader() != classLoader) continue;
+            it.remove();
+            task.cancel();
+            removed = true;
+        }
+        return removed;
+    }
+
+    /**
+     * Keeps the task on its schedule but skips its runs until resumed.
+     */
+    public boolean pause(long id) {
+        return setPaused(id, true);
+    }
+
+    public boolean resume(long id) {
+        return setPaused(id, false);
+    }
+
+    private boolean setPaused(long id, boolean paused) {
+        ScheduledTask task = activeTasks.get(id);
+        if (task != null) task.metrics.paused = paused;
+        return task != null;
+    }
+
+    @CommandManager.Command(name = "tasks", description = "Lists scheduled tasks; 'tasks pause|resume|cancel <id>' controls one")
+    private void tasksCommand(CommandManager.CommandSender sender, String[] args) {
+        if (args.length == 2) {
+            Long id = ArgumentParsers.parseLong(args[1]);
+            boolean found;
+            switch (args[0].toLowerCase()) {
+                case "pause": found = id != null && pause(id); break;
+                case "resume": found = id != null && resume(id); break;
+                case "cancel": found = id != null && cancel(id); break;
+                default: sender.sendMessage("Usage: tasks [pause|resume|cancel <id>]"); return;
+            }
+            sender.sendMessage(found ? "Task #" + id + ": " + args[0].toLowerCase() + " ok." : "No task with id " + args[1] + ".");
+            return;
+        }
+
+        List<TaskMetrics> tasks = getTaskMetrics();
+        sender.sendMessage("=== Scheduled Tasks (" + tasks.size() + ") ===");
+        for (TaskMetrics t : tasks) {
+            sender.sendMessage(String.format("#%d %s every %s %s%s | runs=%d failed=%d overruns=%d skipped=%d | p50=%s p99=%s max=%s | lag p99=%s",
+                    t.getId(), t.getName(), formatNanos(t.getPeriod()), t.getPolicy(), t.isPaused() ? " [paused]" : "",
+                    t.getRunCount(), t.getFailureCount(), t.getOverrunCount(), t.getSkippedCount(),
+                    formatNanos(t.getLatency().getValueAtPercentile(50)), formatNanos(t.getLatency().getValueAtPercentile(99)),
+                    formatNanos(t.getLatency().getMax()), formatNanos(t.getScheduleLag().getValueAtPercentile(99))));
+        }
+
+        TickLoop loop = this.tickLoop;
+        if (loop != null) {
+            sender.sendMessage(String.format("Tick loop: ticks=%d over-budget=%d backlog=%d | tick p50=%s p99=%s max=%s",
+                    loop.getTickCount(), loop.getBudgetExceededCount(), loop.getBacklog(),
+                    formatNanos(loop.getTickDurations().getValueAtPercentile(50)),
+                    formatNanos(loop.getTickDurations().getValueAtPercentile(99)),
+                    formatNanos(loop.getTickDurations().getMax())));
+        }
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos >= TimeUnit.SECONDS.toNanos(1)) return String.format("%.2fs", nanos / 1e9);
+        if (nanos >= TimeUnit.MILLISECONDS.toNanos(1)) return String.format("%.2fms", nanos / 1e6);
+        return (nanos / 1000) + "us";
+    }
+
+    /**
+     * Counters and histograms of a single task, updated by its runs.
+     */
+    public static class TaskMetrics {
+        @Getter private final long id;
+        @Getter private final String name;
+        @Getter private final long period; // Nanos
+        @Getter private final OverrunPolicy policy;
+        @Getter private final LatencyHistogram latency = new LatencyHistogram();
+        @Getter private final LatencyHistogram scheduleLag = new LatencyHistogram(); // Actual start minus planned start
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder overruns = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        @Getter private volatile boolean paused;
+        @Getter private volatile int consecutiveFailures;
+
+        TaskMetrics(long id, String name, long period, OverrunPolicy policy) {
+            this.id = id;
+            this.name = name;
+            this.period = period;
+            this.policy = policy;
+        }
+
+        public long getRunCount() { return runs.sum(); }
+        public long getFailureCount() { return failures.sum(); }
+        /** Runs that took longer than the task's interval. */
+        public long getOverrunCount() { return overruns.sum(); }
+        /** Runs dropped by SKIP_IF_RUNNING or collapsed by COALESCE. */
+        public long getSkippedCount() { return skipped.sum(); }
+    }
+
+    /**
+     * Swaps the timing backend. Only allowed while no task is scheduled.
+     */
+    public synchronized void setBackend(SchedulerBackend backend) {
+        if (!activeTasks.isEmpty()) throw new IllegalStateException("Cannot change the scheduler backend while tasks are scheduled");
+        SchedulerBackend previous = this.backend;
+        this.backend = backend;
+        previous.shutdown();
+    }
+
+    private static SchedulerBackend createBackend() {
+        if ("wheel".equalsIgnoreCase(System.getProperty("modularitea.scheduler"))) {
+            return new HashedTimingWheel(
+                    Long.getLong("modularitea.scheduler.tick", 10L), TimeUnit.MILLISECONDS,
+                    Integer.getInteger("modularitea.scheduler.wheelSize", 512));
+        }
+        return new ExecutorBackend();
+    }
+
+    /**
+     * Default backend: a single-threaded ScheduledThreadPoolExecutor used purely as a timer.
+     */
+    public static class ExecutorBackend implements SchedulerBackend {
+        private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "TaskScheduler");
+            t.setDaemon(true);
+            return t;
+        });
+
+        public ExecutorBackend() {
+            timer.setRemoveOnCancelPolicy(true);
+        }
+
+        @Override
+        public TimerHandle schedule(Runnable trigger, long delay, TimeUnit unit) {
+            ScheduledFuture<?> future = timer.schedule(trigger, delay, unit);
+            return () -> future.cancel(false);
+        }
+
+        @Override
+        public void shutdown() {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * A registered @Task. Except for SKIP_IF_RUNNING, the next run is armed only after the current one
+     * finished, so a task never overlaps itself; the policy decides when that next run is planned.
+     */
+    private class ScheduledTask {
+        private final Object listener;
+        private final String method;
+        private final ClassDescriptor.Invoker invoker;
+        private final long period;
+        private final TaskMetrics metrics;
+        private final Executor executor;
+        private final OverrunPolicy policy;
+        private final boolean backoff;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private volatile long planned; // Clock time of the next planned run
+        private volatile TimerHandle timer;
+        private volatile boolean cancelled;
+
+        ScheduledTask(long id, Object listener, String method, ClassDescriptor.Invoker invoker, long period, Executor executor,
+                      OverrunPolicy policy, boolean backoff) {
+            this.executor = executor;
+            this.listener = listener;
+            this.method = method;
+            this.invoker = invoker;
+            this.period = period;
+            this.policy = policy;
+            this.backoff = backoff;
+            this.metrics = new TaskMetrics(id, listener.getClass().getSimpleName() + "#" + method, period, policy);
+        }
+
+        void start(long delay) {
+            planned = clock.getAsLong() + delay;
+            arm();
+        }
+
+        private void arm() {
+            if (cancelled) return;
+            try {
+                timer = backend.schedule(this::fire, planned - clock.getAsLong(), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                cancelled = true; // Backend already shut down
+            }
+        }
+
+        private void fire() {
+            if (cancelled) return;
+            long slot = planned;
+
+            if (policy == OverrunPolicy.SKIP_IF_RUNNING) {
+                // Stay on the grid independently of the run; slots already in the past are skipped
+                long now = clock.getAsLong();
+                long next = slot + period;
+                if (next - now <= 0) {
+                    long missed = (now - next) / period + 1;
+                    metrics.skipped.add(missed);
+                    next += missed * period;
+                }
+                planned = next + backoffDelay();
+                arm();
+                if (!running.compareAndSet(false, true)) {
+                    metrics.skipped.increment();
+                    return;
+                }
+            }
+
+            try {
+                executor.execute(() -> run(slot));
+            } catch (RejectedExecutionException e) {
+                cancelled = true;
+            }
+        }
+
+        private void run(long slot) {
+            if (!metrics.paused) {
+                long started = clock.getAsLong();
+                metrics.scheduleLag.record(started - slot);
+                boolean failed = false;
+                try {
+                    invoker.invoke(listener, null);
+                } catch (Throwable e) {
+                    failed = true;
+                    metrics.failures.increment();
+                    System.err.println("Task execution failed: " + method);
+                    e.printStackTrace();
+                }
+                long duration = clock.getAsLong() - started;
+                metrics.runs.increment();
+                metrics.latency.record(duration);
+                if (duration > period) metrics.overruns.increment();
+                metrics.consecutiveFailures = failed ? metrics.consecutiveFailures + 1 : 0;
+            }
+
+            if (policy == OverrunPolicy.SKIP_IF_RUNNING) {
+                running.set(false);
+                return;
+            }
+            planned = nextSlot(slot) + backoffDelay();
+            arm();
+        }
+
+        private long nextSlot(long slot) {
+            long now = clock.getAsLong();
+            switch (policy) {
+                case FIXED_DELAY:
+                    return now + period;
+                case COALESCE:
+                    long next = slot + period;
+                    if (next - now >= 0) return next;
+                    metrics.skipped.add((now - next) / period);
+                    return now; // One catch-up run now, then back on an interval from here
+                default:
+                    return slot + period;
+            }
+        }
+
+        /**
+         * Extra delay once a task keeps failing: 1x, 2x, 4x ... 64x the interval.
+         */
+        private long backoffDelay() {
+            int failures = metrics.consecutiveFailures;
+            if (!backoff || failures < BACKOFF_THRESHOLD) return 0;
+            return period * ((1L << Math.min(failures - BACKOFF_THRESHOLD, MAX_BACKOFF_SHIFT)));
+        }
+
+        void cancel() {
+            cancelled = true;
+            TimerHandle current = timer;
+            if (current != null) current.cancel();
+        }
+    }
+
+    /**
+     * Gracefully shuts down the scheduler.
+     */
+    public void stopAll() {
+        stopAll(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Lets running tasks finish until the timeout, then interrupts whatever is left.
+     */
+    public void stopAll(long timeout, TimeUnit unit) {
+        activeTasks.values().forEach(ScheduledTask::cancel);
+        activeTasks.clear();
+        backend.shutdown();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        TickLoop loop = this.tickLoop;
+        if (loop != null) loop.stop(timeout, unit);
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+        }
+    }
+}
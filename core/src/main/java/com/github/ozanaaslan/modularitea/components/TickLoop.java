@@ -0,0 +1,122 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import lombok.Getter;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single-threaded "main loop", similar to a game server tick. Work submitted from any thread is
+ * batched into one queue and drained at the start of every tick until the time budget is spent;
+ * whatever is left spills over to the next tick. Everything submitted here runs on the same thread,
+ * so it can touch shared state without locks.
+ */
+public class TickLoop implements Executor {
+
+    @Getter private final long tickNanos;
+    @Getter private final long budgetNanos;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    @Getter private final LatencyHistogram tickDurations = new LatencyHistogram();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder budgetExceeded = new LongAdder();
+
+    /**
+     * @param tick   period between tick starts
+     * @param budget how long a tick may spend draining the queue before spilling over
+     */
+    public TickLoop(long tick, long budget, TimeUnit unit) {
+        this.tickNanos = unit.toNanos(tick);
+        this.budgetNanos = Math.min(unit.toNanos(budget), tickNanos);
+        this.thread = new Thread(this::loop, "ModulariteaMain");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!running) throw new RejectedExecutionException("Tick loop is stopped");
+        queue.add(task);
+        backlog.incrementAndGet();
+    }
+
+    /**
+     * Runs the callable on the tick thread and completes the future with its result.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                future.complete(callable.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    public boolean isTickThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    private void loop() {
+        long nextTick = System.nanoTime();
+        while (running) {
+            long start = System.nanoTime();
+            drain(start, budgetNanos);
+            if (!queue.isEmpty()) budgetExceeded.increment();
+            ticks.increment();
+            tickDurations.record(System.nanoTime() - start);
+
+            nextTick += tickNanos;
+            long sleep = nextTick - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(this, sleep); // stop() unparks us early
+            } else {
+                nextTick = System.nanoTime(); // Behind schedule: don't try to catch up on missed ticks
+            }
+        }
+        drain(System.nanoTime(), Long.MAX_VALUE);
+    }
+
+    private void drain(long start, long budget) {
+        for (Runnable task; System.nanoTime() - start < budget && (task = queue.poll()) != null; ) {
+            backlog.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.err.println("Tick task failed");
+                t.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stops ticking after running what is still queued.
+     * @return true if the loop finished within the timeout
+     */
+    public boolean stop(long timeout, TimeUnit unit) {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(Math.max(1, unit.toMillis(timeout)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+
+    public long getTickCount() { return ticks.sum(); }
+
+    /** Ticks that ended with work still queued because the budget ran out. */
+    public long getBudgetExceededCount() { return budgetExceeded.sum(); }
+
+    /** Tasks currently waiting for a tick. */
+    public int getBacklog() { return backlog.get(); }
+}
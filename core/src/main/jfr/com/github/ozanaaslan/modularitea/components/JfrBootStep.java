@@ -0,0 +1,41 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A {@link BootProfiler} step as a JFR event. Kept out of the main sources (it is compiled for
+ * Java 11 by the "jfr" profile) and only loaded reflectively, so the framework itself still builds
+ * and runs on Java 8 without JFR.
+ */
+@Name("modularitea.BootStep")
+@Label("Boot Step")
+@Category("Modularitea")
+class JfrBootStep extends Event {
+    @Label("Category") String category;
+    @Label("Name") String name;
+    @Label("Step") String step;
+    @Label("Allocated") @DataAmount long allocated;
+
+    static class Recorder implements BootProfiler.EventRecorder {
+        @Override
+        public Object begin() {
+            JfrBootStep event = new JfrBootStep();
+            event.begin();
+            return event;
+        }
+
+        @Override
+        public void commit(Object started, String category, String name, String step, long allocated) {
+            JfrBootStep event = (JfrBootStep) started;
+            event.category = category;
+            event.name = name;
+            event.step = step;
+            event.allocated = allocated;
+            event.commit();
+        }
+    }
+}
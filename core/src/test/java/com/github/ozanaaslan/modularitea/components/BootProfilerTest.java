@@ -0,0 +1,98 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BootProfilerTest {
+
+    private long now = 1_000;
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("modularitea.profile.file");
+    }
+
+    @Test
+    void writesStepsLongestFirstWithQuotedStrings(@TempDir File dir) throws Exception {
+        File file = new File(dir, "boot-profile.json");
+        System.setProperty("modularitea.profile.file", file.getPath());
+        BootProfiler profiler = new BootProfiler(true, () -> now);
+
+        Thread booting = new Thread(() -> {
+            step(profiler, "phase", "boot", "managers", 500);
+            step(profiler, "module", "say \"hi\"", "back\\slash", 2_000);
+            step(profiler, "intertwine", "tab\there", "new\nline", 500);
+        }, "boot \"1\"");
+        booting.start();
+        booting.join();
+        now = 10_000;
+        profiler.finish();
+
+        // Equal durations keep their recording order
+        String thread = "\"boot \\\"1\\\"\"";
+        assertEquals("{\n"
+                + "  \"totalNanos\": 9000,\n"
+                + "  \"steps\": [\n"
+                + "    {\"category\": \"module\", \"name\": \"say \\\"hi\\\"\", \"step\": \"back\\\\slash\", \"thread\": " + thread
+                + ", \"startNanos\": 500, \"durationNanos\": 2000, \"allocatedBytes\": N},\n"
+                + "    {\"category\": \"phase\", \"name\": \"boot\", \"step\": \"managers\", \"thread\": " + thread
+                + ", \"startNanos\": 0, \"durationNanos\": 500, \"allocatedBytes\": N},\n"
+                + "    {\"category\": \"intertwine\", \"name\": \"tab\\u0009here\", \"step\": \"new\\u000aline\", \"thread\": " + thread
+                + ", \"startNanos\": 2500, \"durationNanos\": 500, \"allocatedBytes\": N}\n"
+                + "  ]\n"
+                + "}\n", read(file));
+    }
+
+    @Test
+    void stopsRecordingOnFinish(@TempDir File dir) throws Exception {
+        File file = new File(dir, "boot-profile.json");
+        System.setProperty("modularitea.profile.file", file.getPath());
+        BootProfiler profiler = new BootProfiler(true, () -> now);
+        step(profiler, "phase", "boot", "managers", 100);
+        profiler.finish();
+        assertTrue(file.delete());
+
+        BootProfiler.Span late = profiler.span("phase", "boot", "late");
+        now += 100;
+        late.close();
+        assertSame(late, profiler.span("module", "other", "constructor")); // The shared no-op
+        assertEquals(1, profiler.getSteps().size());
+
+        profiler.finish();
+        assertFalse(file.exists());
+    }
+
+    @Test
+    void recordsNothingWhenDisabled(@TempDir File dir) {
+        File file = new File(dir, "boot-profile.json");
+        System.setProperty("modularitea.profile.file", file.getPath());
+        BootProfiler profiler = new BootProfiler(false, () -> now);
+
+        step(profiler, "phase", "boot", "managers", 100);
+        profiler.finish();
+
+        assertTrue(profiler.getSteps().isEmpty());
+        assertFalse(file.exists());
+    }
+
+    private void step(BootProfiler profiler, String category, String name, String step, long nanos) {
+        try (BootProfiler.Span ignored = profiler.span(category, name, step)) {
+            now += nanos;
+        }
+    }
+
+    /**
+     * The file with every allocatedBytes value replaced by N, as those depend on the JVM.
+     */
+    private static String read(File file) throws Exception {
+        String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        return json.replace(System.lineSeparator(), "\n").replaceAll("\"allocatedBytes\": -?\\d+", "\"allocatedBytes\": N");
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandBindingTest {
+
+    private final CommandManager commands = new CommandManager();
+    private final Commands listener = new Commands();
+    private final Sender sender = new Sender();
+
+    CommandBindingTest() {
+        commands.registerParser(Point.class, token -> {
+            int comma = token.indexOf(',');
+            if (comma < 0) return null;
+            Long x = ArgumentParsers.parseLong(token.substring(0, comma)), y = ArgumentParsers.parseLong(token.substring(comma + 1));
+            return x == null || y == null ? null : new Point(x, y);
+        });
+        commands.register(listener);
+    }
+
+    @Test
+    void bindsTypedArguments() throws Exception {
+        assertEquals(CommandManager.Status.COMPLETED, run("give Steve 64 true"));
+        assertEquals(Arrays.asList("Steve", 64, true), listener.calls.get(0));
+    }
+
+    @Test
+    void bindsEnumsDurationsAndCustomTypes() throws Exception {
+        assertEquals(CommandManager.Status.COMPLETED, run("schedule hours 1h30m 3,-4"));
+        assertEquals(Arrays.asList(TimeUnit.HOURS, Duration.ofMinutes(90), new Point(3, -4)), listener.calls.get(0));
+    }
+
+    @Test
+    void passesRemainingTokensToTrailingArray() throws Exception {
+        assertEquals(CommandManager.Status.COMPLETED, run("say 2 hello \"big world\""));
+        assertEquals(2, listener.calls.get(0).get(0));
+        assertArrayEquals(new String[]{"hello", "big world"}, (String[]) listener.calls.get(0).get(1));
+
+        assertEquals(CommandManager.Status.COMPLETED, run("say 1"));
+        assertArrayEquals(new String[0], (String[]) listener.calls.get(1).get(1));
+    }
+
+    @Test
+    void rejectsBadValuesWithUsage() throws Exception {
+        assertEquals(CommandManager.Status.INVALID_ARGUMENTS, run("give Steve lots true"));
+        assertTrue(sender.messages.get(0).startsWith("Invalid value 'lots' for argument 2"), sender.messages.toString());
+        assertEquals(CommandManager.Status.INVALID_ARGUMENTS, run("give Steve 99999999999 true"));
+        assertEquals(CommandManager.Status.INVALID_ARGUMENTS, run("schedule fortnights 1h 0,0"));
+        assertEquals(CommandManager.Status.INVALID_ARGUMENTS, run("schedule hours 999999999999999d 0,0"));
+        assertEquals(CommandManager.Status.INVALID_ARGUMENTS, run("schedule hours 2562047788015215h1h 0,0"));
+        assertTrue(listener.calls.isEmpty());
+    }
+
+    @Test
+    void rejectsWrongArgumentCountWithUsage() throws Exception {
+        assertEquals(CommandManager.Status.INVALID_ARGUMENTS, run("give Steve 64"));
+        assertEquals(CommandManager.Status.INVALID_ARGUMENTS, run("give Steve 64 true extra"));
+        assertEquals("Usage: give <string> <int> <boolean>", sender.messages.get(0));
+    }
+
+    @Test
+    void skipsCommandWithoutParserForItsParameter() throws Exception {
+        commands.register(new Unparsable());
+        assertEquals(CommandManager.Status.UNKNOWN_COMMAND, run("unparsable x"));
+    }
+
+    @Test
+    void reportsUnknownCommandsWithSuggestion() throws Exception {
+        assertEquals(CommandManager.Status.UNKNOWN_COMMAND, run("giv Steve 1 true"));
+        assertTrue(sender.messages.get(0).contains("Did you mean 'give'?"), sender.messages.toString());
+        assertEquals(CommandManager.Status.EMPTY_INPUT, run("   "));
+    }
+
+    @Test
+    void reportsFailuresOfTheCommand() throws Exception {
+        CommandManager.CommandResult result = commands.execute(sender, "fail").get();
+        assertEquals(CommandManager.Status.FAILED, result.getStatus());
+        assertInstanceOf(IllegalStateException.class, result.getError());
+    }
+
+    private CommandManager.Status run(String input) throws Exception {
+        return commands.execute(sender, input).get().getStatus();
+    }
+
+    static final class Point {
+        final long x, y;
+
+        Point(long x, long y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Point && ((Point) o).x == x && ((Point) o).y == y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(x * 31 + y);
+        }
+    }
+
+    static class Sender implements CommandManager.CommandSender {
+        final List<String> messages = new ArrayList<>();
+
+        @Override
+        public void sendMessage(String message) { messages.add(message); }
+
+        @Override
+        public boolean hasPermission(String permission) { return true; }
+    }
+
+    static class Unparsable {
+        @CommandManager.Command(name = "unparsable")
+        void unparsable(CommandManager.CommandSender sender, Thread thread) { }
+    }
+
+    static class Commands {
+        final List<List<Object>> calls = new ArrayList<>();
+
+        @CommandManager.Command(name = "give")
+        void give(CommandManager.CommandSender sender, String player, int amount, boolean announce) {
+            calls.add(Arrays.asList(player, amount, announce));
+        }
+
+        @CommandManager.Command(name = "schedule")
+        void schedule(CommandManager.CommandSender sender, TimeUnit unit, Duration after, Point where) {
+            calls.add(Arrays.asList(unit, after, where));
+        }
+
+        @CommandManager.Command(name = "say")
+        void say(CommandManager.CommandSender sender, int times, String[] words) {
+            calls.add(Arrays.asList(times, words));
+        }
+
+        @CommandManager.Command(name = "fail")
+        void fail(CommandManager.CommandSender sender) {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
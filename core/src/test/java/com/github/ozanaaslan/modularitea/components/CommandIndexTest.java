@@ -0,0 +1,58 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandIndexTest {
+
+    private static CommandIndex<String> index() {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("help", "help");
+        entries.put("h", "help");
+        entries.put("reload", "reload");
+        entries.put("Restart", "restart");
+        entries.put("stop", "stop");
+        return CommandIndex.of(entries);
+    }
+
+    @Test
+    void resolvesNamesCaseInsensitively() {
+        CommandIndex<String> index = index();
+        assertEquals("help", index.get("HELP", 0, 4));
+        assertEquals("help", index.get("h", 0, 1));
+        assertEquals("restart", index.get("restart", 0, 7));
+        assertNull(index.get("hel", 0, 3));
+        assertNull(index.get("helper", 0, 6));
+    }
+
+    @Test
+    void resolvesRangeWithinInput() {
+        CommandIndex<String> index = index();
+        assertEquals("reload", index.get("/reload now", 1, 7));
+        assertEquals("stop", index.get("xxSTOPxx", 2, 6));
+    }
+
+    @Test
+    void completesPrefixAlphabetically() {
+        CommandIndex<String> index = index();
+        assertEquals(Arrays.asList("reload", "Restart"), index.complete("re"));
+        assertEquals(Arrays.asList("h", "help"), index.complete("H"));
+        assertEquals(Collections.emptyList(), index.complete("x"));
+        assertEquals(5, index.complete("").size());
+    }
+
+    @Test
+    void suggestsClosestNamesFirst() {
+        CommandIndex<String> index = index();
+        assertEquals(Collections.singletonList("stop"), index.suggest("stpo", 2));
+        assertEquals(Collections.singletonList("reload"), index.suggest("RELOA", 1));
+        assertEquals(Arrays.asList("help", "h"), index.suggest("hel", 2));
+        assertEquals(Collections.emptyList(), index.suggest("xyzzy", 1));
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandLaneTest {
+
+    private final CommandManager commands = new CommandManager();
+    private final Commands listener = new Commands();
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        commands.register(listener);
+        commands.setExecutor(executor);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        listener.release.countDown();
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void runsCommandsOfOneSenderInOrderWithoutOverlap() throws Exception {
+        Sender alice = new Sender(), bob = new Sender();
+        List<CompletableFuture<CommandManager.CommandResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(commands.execute(alice, "record " + i));
+            futures.add(commands.execute(bob, "record " + i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        for (Sender sender : Arrays.asList(alice, bob)) {
+            assertEquals(100, sender.recorded.size());
+            for (int i = 0; i < 100; i++) assertEquals(i, sender.recorded.get(i));
+            assertEquals(1, sender.maxConcurrent.get());
+        }
+    }
+
+    @Test
+    void sendersDoNotWaitForEachOther() throws Exception {
+        Sender alice = new Sender(), bob = new Sender();
+        CompletableFuture<CommandManager.CommandResult> blocked = commands.execute(alice, "block");
+        assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+
+        assertEquals(CommandManager.Status.COMPLETED, commands.execute(bob, "record 1").get(5, TimeUnit.SECONDS).getStatus());
+        assertFalse(blocked.isDone());
+    }
+
+    @Test
+    void inlineCommandRunsOnCallerWhenLaneIsIdle() throws Exception {
+        Sender alice = new Sender();
+        CompletableFuture<CommandManager.CommandResult> result = commands.execute(alice, "where");
+
+        assertTrue(result.isDone());
+        assertSame(Thread.currentThread(), alice.thread);
+    }
+
+    @Test
+    void inlineCommandWaitsItsTurnWhenLaneIsBusy() throws Exception {
+        Sender alice = new Sender();
+        CompletableFuture<CommandManager.CommandResult> blocked = commands.execute(alice, "block");
+        assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<CommandManager.CommandResult> inline = commands.execute(alice, "where");
+        assertFalse(inline.isDone());
+        assertNull(alice.thread);
+
+        listener.release.countDown();
+        assertEquals(CommandManager.Status.COMPLETED, inline.get(5, TimeUnit.SECONDS).getStatus());
+        assertTrue(blocked.isDone());
+        assertNotSame(Thread.currentThread(), alice.thread);
+    }
+
+    @Test
+    void timedOutCommandStillHoldsTheLane() throws Exception {
+        Sender alice = new Sender();
+        CompletableFuture<CommandManager.CommandResult> slow = commands.execute(alice, "slow");
+        CompletableFuture<CommandManager.CommandResult> next = commands.execute(alice, "record 7");
+
+        assertEquals(CommandManager.Status.TIMED_OUT, slow.get(5, TimeUnit.SECONDS).getStatus());
+        assertTrue(alice.messaged.await(5, TimeUnit.SECONDS)); // The notice may be sent after the future completes
+        assertTrue(alice.messages.stream().anyMatch(m -> m.contains("timed out")), alice.messages.toString());
+        assertFalse(next.isDone());
+        assertTrue(alice.recorded.isEmpty());
+
+        listener.release.countDown();
+        assertEquals(CommandManager.Status.COMPLETED, next.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(Collections.singletonList(7), alice.recorded);
+    }
+
+    @Test
+    void runsEverythingInlineWithoutExecutor() {
+        commands.setExecutor(null);
+        Sender alice = new Sender();
+        CompletableFuture<CommandManager.CommandResult> result = commands.execute(alice, "record 3");
+
+        assertTrue(result.isDone());
+        assertEquals(Collections.singletonList(3), alice.recorded);
+    }
+
+    static class Sender implements CommandManager.CommandSender {
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final CountDownLatch messaged = new CountDownLatch(1);
+        final List<Integer> recorded = new CopyOnWriteArrayList<>();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        volatile Thread thread;
+
+        @Override
+        public void sendMessage(String message) {
+            messages.add(message);
+            messaged.countDown();
+        }
+
+        @Override
+        public boolean hasPermission(String permission) { return true; }
+    }
+
+    static class Commands {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @CommandManager.Command(name = "record")
+        void record(CommandManager.CommandSender sender, int value) throws InterruptedException {
+            Sender s = (Sender) sender;
+            s.maxConcurrent.accumulateAndGet(s.running.incrementAndGet(), Math::max);
+            Thread.sleep(value % 10 == 0 ? 1 : 0);
+            s.recorded.add(value);
+            s.running.decrementAndGet();
+        }
+
+        @CommandManager.Command(name = "block")
+        void block(CommandManager.CommandSender sender) throws InterruptedException {
+            entered.countDown();
+            release.await();
+        }
+
+        @CommandManager.Command(name = "slow", timeout = 20)
+        void slow(CommandManager.CommandSender sender) throws InterruptedException {
+            release.await();
+        }
+
+        @CommandManager.Command(name = "where", inline = true)
+        void where(CommandManager.CommandSender sender) {
+            ((Sender) sender).thread = Thread.currentThread();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandServerTest {
+
+    private final CommandManager commands = new CommandManager();
+    private final Commands listener = new Commands();
+    private final AtomicInteger connections = new AtomicInteger();
+    private ExecutorService executor;
+    private CommandServer server;
+
+    private void start() {
+        commands.registerParser(Marker.class, token -> { throw new IllegalStateException("parser bug"); });
+        commands.register(listener);
+        // The first connection is an admin, later ones get nothing
+        server = commands.serve(0, remote -> connections.getAndIncrement() == 0
+                ? Collections.singleton("*") : Collections.emptySet());
+    }
+
+    @AfterEach
+    void tearDown() {
+        commands.stop();
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Test
+    void answersWithStatusAndOutput() throws IOException {
+        start();
+        try (CommandServer.Client client = new CommandServer.Client(server.getAddress())) {
+            CommandServer.Response response = client.send("echo hello \"big world\"");
+            assertEquals(CommandManager.Status.COMPLETED, response.getStatus());
+            assertEquals("hello\nbig world", response.getOutput());
+
+            response = client.send("nope");
+            assertEquals(CommandManager.Status.UNKNOWN_COMMAND, response.getStatus());
+            assertTrue(response.getOutput().startsWith("Unknown command."), response.getOutput());
+
+            assertEquals(CommandManager.Status.EMPTY_INPUT, client.send("").getStatus());
+        }
+    }
+
+    @Test
+    void answersPipelinedRequestsInOrderAsOneSender() throws IOException {
+        executor = Executors.newFixedThreadPool(4);
+        commands.setExecutor(executor);
+        start();
+        // More than MAX_PIPELINED, written before reading anything
+        String[] requests = new String[3 * CommandServer.MAX_PIPELINED];
+        for (int i = 0; i < requests.length; i++) requests[i] = "record " + i;
+
+        try (CommandServer.Client client = new CommandServer.Client(server.getAddress())) {
+            List<CommandServer.Response> responses = client.pipeline(requests);
+            for (int i = 0; i < requests.length; i++) {
+                assertEquals(CommandManager.Status.COMPLETED, responses.get(i).getStatus());
+                assertEquals(String.valueOf(i), responses.get(i).getOutput());
+            }
+        }
+        assertEquals(1, listener.senders.size(), "one CommandSender per connection");
+        assertEquals(1, listener.maxConcurrent.get(), "a connection's commands share its lane");
+    }
+
+    @Test
+    void grantsPermissionsPerConnection() throws IOException {
+        start();
+        try (CommandServer.Client admin = new CommandServer.Client(server.getAddress());
+             CommandServer.Client guest = new CommandServer.Client(server.getAddress())) {
+            assertEquals(CommandManager.Status.COMPLETED, admin.send("secret").getStatus());
+            CommandServer.Response denied = guest.send("secret");
+            assertEquals(CommandManager.Status.ACCESS_DENIED, denied.getStatus());
+            assertEquals("Access Denied.", denied.getOutput());
+            assertEquals(CommandManager.Status.COMPLETED, admin.send("secret").getStatus());
+        }
+    }
+
+    @Test
+    void answersWhenExecuteThrows() throws IOException {
+        start();
+        try (CommandServer.Client client = new CommandServer.Client(server.getAddress())) {
+            CommandServer.Response response = client.send("mark x");
+            assertEquals(CommandManager.Status.FAILED, response.getStatus());
+            assertTrue(response.getOutput().contains("parser bug"), response.getOutput());
+            assertEquals("ok", client.send("echo ok").getOutput(), "the connection keeps working");
+        }
+    }
+
+    @Test
+    void dropsConnectionSendingMalformedFrame() throws IOException {
+        start();
+        for (int length : new int[]{CommandServer.MAX_FRAME + 1, -5}) {
+            try (SocketChannel raw = SocketChannel.open(server.getAddress())) {
+                ByteBuffer frame = ByteBuffer.allocate(4).putInt(length);
+                frame.flip();
+                raw.write(frame);
+                assertEquals(-1, raw.read(ByteBuffer.allocate(16)), "closed after a frame of length " + length);
+            }
+        }
+
+        try (CommandServer.Client client = new CommandServer.Client(server.getAddress())) {
+            assertEquals("still up", client.send("echo still up").getOutput().replace('\n', ' '));
+        }
+    }
+
+    @Test
+    void closedServerRefusesConnections() {
+        start();
+        InetSocketAddress address = server.getAddress();
+        commands.stop();
+        assertThrows(IOException.class, () -> new CommandServer.Client(address).send("echo x"));
+    }
+
+    static final class Marker {}
+
+    static class Commands {
+        final Set<CommandManager.CommandSender> senders = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        @CommandManager.Command(name = "echo")
+        void echo(CommandManager.CommandSender sender, String[] words) {
+            for (String word : words) sender.sendMessage(word);
+        }
+
+        @CommandManager.Command(name = "record")
+        void record(CommandManager.CommandSender sender, int value) {
+            senders.add(sender);
+            maxConcurrent.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sender.sendMessage(String.valueOf(value));
+            running.decrementAndGet();
+        }
+
+        @CommandManager.Command(name = "secret", permission = "admin")
+        void secret(CommandManager.CommandSender sender) { }
+
+        @CommandManager.Command(name = "mark")
+        void mark(CommandManager.CommandSender sender, Marker marker) { }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandTokenizerTest {
+
+    @Test
+    void splitsOnWhitespaceRuns() {
+        assertArrayEquals(new String[]{"give", "steve", "64"}, CommandManager.tokenize("  give \t steve   64 ", 0));
+    }
+
+    @Test
+    void startsAtOffset() {
+        assertArrayEquals(new String[]{"a", "b"}, CommandManager.tokenize("/cmd a b", 4));
+        assertEquals(0, CommandManager.tokenize("/cmd   ", 4).length);
+        assertEquals(0, CommandManager.tokenize("", 0).length);
+    }
+
+    @Test
+    void keepsQuotedWhitespace() {
+        assertArrayEquals(new String[]{"say", "hello world", "it's"},
+                CommandManager.tokenize("say \"hello world\" \"it's\"", 0));
+        assertArrayEquals(new String[]{"a \"b\" c"}, CommandManager.tokenize("'a \"b\" c'", 0));
+    }
+
+    @Test
+    void joinsAdjacentQuotedAndBareText() {
+        assertArrayEquals(new String[]{"key=some value"}, CommandManager.tokenize("key=\"some value\"", 0));
+    }
+
+    @Test
+    void unescapesInsideQuotes() {
+        assertArrayEquals(new String[]{"say \"hi\"", "back\\slash"},
+                CommandManager.tokenize("\"say \\\"hi\\\"\" \"back\\\\slash\"", 0));
+    }
+
+    @Test
+    void leavesBackslashesOutsideQuotes() {
+        assertArrayEquals(new String[]{"C:\\dir"}, CommandManager.tokenize("C:\\dir", 0));
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurationTest {
+
+    @TempDir
+    File dir;
+    private ModuleManager.Configuration configuration;
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("modularitea.config.coalesce");
+        if (configuration != null) configuration.close();
+    }
+
+    @Test
+    void loadsExistingValues() throws IOException {
+        Files.write(file().toPath(), "a=1\nb=two\n".getBytes());
+        configuration = new ModuleManager.Configuration(file());
+
+        assertEquals("1", configuration.get("a"));
+        assertEquals("two", configuration.get("b"));
+        assertEquals("fallback", configuration.get("c", "fallback"));
+    }
+
+    @Test
+    void coalescesBurstIntoOneDeferredWrite() throws Exception {
+        configuration = open(500);
+        for (int i = 0; i < 100; i++) configuration.set("key" + i, "value" + i);
+
+        assertEquals("value99", configuration.get("key99"), "reads see changes right away");
+        assertTrue(stored().isEmpty(), "written only after the coalescing window");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (stored().size() < 100 && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        Properties stored = stored();
+        assertEquals(100, stored.size());
+        assertEquals("value42", stored.getProperty("key42"));
+        assertFalse(new File(dir, "modules.properties.tmp").exists());
+    }
+
+    @Test
+    void flushWritesImmediately() throws IOException {
+        configuration = open(60_000);
+        configuration.set("a", "1");
+        configuration.flush();
+
+        assertEquals("1", stored().getProperty("a"));
+    }
+
+    @Test
+    void closeWritesPendingChanges() throws IOException {
+        configuration = open(60_000);
+        configuration.set("a", "1");
+        configuration.remove("missing");
+        configuration.close();
+
+        assertEquals("1", stored().getProperty("a"));
+    }
+
+    @Test
+    void changesAfterCloseAreWrittenSynchronously() throws IOException {
+        configuration = open(60_000);
+        configuration.close();
+
+        configuration.set("late", "yes");
+        assertEquals("yes", stored().getProperty("late"));
+        configuration.remove("late");
+        assertNull(stored().getProperty("late"));
+    }
+
+    @Test
+    void notifiesListenersOfActualChanges() {
+        configuration = open(60_000);
+        List<String> changes = new ArrayList<>();
+        configuration.addListener((key, oldValue, newValue) -> changes.add(key + ":" + oldValue + "->" + newValue));
+        configuration.addListener((key, oldValue, newValue) -> { throw new IllegalStateException("ignored"); });
+
+        configuration.set("a", "1");
+        configuration.set("a", "1");
+        configuration.set("a", "2");
+        configuration.set("a", null);
+
+        assertEquals(Arrays.asList("a:null->1", "a:1->2", "a:2->null"), changes);
+    }
+
+    private ModuleManager.Configuration open(long coalesceMillis) {
+        System.setProperty("modularitea.config.coalesce", String.valueOf(coalesceMillis));
+        return new ModuleManager.Configuration(file());
+    }
+
+    private File file() {
+        return new File(dir, "modules.properties");
+    }
+
+    private Properties stored() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file().toPath())) {
+            properties.load(in);
+        }
+        return properties;
+    }
+}
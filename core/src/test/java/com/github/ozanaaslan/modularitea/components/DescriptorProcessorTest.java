@@ -0,0 +1,195 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DescriptorProcessorTest {
+
+    private static final String SAMPLE = String.join("\n",
+            "package sample;",
+            "import com.github.ozanaaslan.modularitea.components.*;",
+            "import java.util.List;",
+            "import java.util.concurrent.TimeUnit;",
+            "public class Sample {",
+            "    public final StringBuilder log = new StringBuilder();",
+            "    @CommandManager.Command(name = \"Greet\", aliases = {\"hi\"}, inline = true, timeout = 50)",
+            "    void greet(CommandManager.CommandSender sender, int times, String[] rest) { log.append(\"greet:\" + times + \":\" + rest.length); }",
+            "    @CommandManager.Command(name = \"secret\")",
+            "    private void secret(CommandManager.CommandSender sender) {}",
+            "    @TaskManager.Task(interval = 5, unit = TimeUnit.MILLISECONDS, overrun = TaskManager.OverrunPolicy.COALESCE, spread = true)",
+            "    void tick() { log.append(\"tick\"); }",
+            "    @EventManager.EventBus",
+            "    public void on(Ping ping) { log.append(\"ping\"); }",
+            "    @EventManager.EventBus(batch = true)",
+            "    public void onAll(List<? extends Ping> pings) { log.append(\"batch:\" + pings.size()); }",
+            "    @ServiceManager.ServiceBean(\"clock\")",
+            "    String clock(Integer seed, @ServiceManager.InjectService(\"primary\") Long id) { return \"clock:\" + seed + \":\" + id; }",
+            "    @ServiceManager.ServiceBean",
+            "    Integer seed = 7;",
+            "    @ServiceManager.InjectService(\"clock\")",
+            "    String injected;",
+            "    @ServiceManager.InjectService",
+            "    ServiceManager.Provider<Long> ids;",
+            "    public static class Ping extends EventManager.Event {}",
+            "}");
+
+    @TempDir
+    File dir;
+
+    @Test
+    void generatesDescriptorSource() throws Exception {
+        compile(SAMPLE);
+
+        File generated = new File(dir, "generated/sample/Sample$$Descriptor.java");
+        assertTrue(generated.isFile());
+        String source = new String(Files.readAllBytes(generated.toPath()), StandardCharsets.UTF_8);
+        assertTrue(source.contains("public final class Sample$$Descriptor extends " + ClassDescriptor.class.getCanonicalName()));
+        assertTrue(source.contains("super(sample.Sample.class);"), source);
+    }
+
+    @Test
+    void describesEveryAnnotatedMember() throws Throwable {
+        try (URLClassLoader loader = compile(SAMPLE)) {
+            Class<?> type = loader.loadClass("sample.Sample");
+            ClassDescriptor descriptor = ClassDescriptor.of(type);
+            assertNotNull(descriptor);
+            assertSame(type, descriptor.getType());
+            Object sample = type.getConstructor().newInstance();
+
+            List<ClassDescriptor.CommandMember> commands = descriptor.getCommands();
+            assertEquals(2, commands.size());
+            ClassDescriptor.CommandMember greet = commands.get(0);
+            assertEquals("Greet", greet.getName());
+            assertArrayEquals(new String[]{"hi"}, greet.getAliases());
+            assertTrue(greet.isInline());
+            assertEquals(50, greet.getTimeout());
+            assertArrayEquals(new Class<?>[]{CommandManager.CommandSender.class, int.class, String[].class}, greet.getParameterTypes());
+            greet.getInvoker().invoke(sample, null, new Object[]{3, new String[]{"a"}});
+            assertEquals("greet:3:1", log(sample));
+            assertNull(commands.get(1).getInvoker(), "private members are left to reflection");
+
+            ClassDescriptor.TaskMember tick = descriptor.getTasks().get(0);
+            assertEquals(5, tick.getInterval());
+            assertEquals(TimeUnit.MILLISECONDS, tick.getUnit());
+            assertEquals(TaskManager.OverrunPolicy.COALESCE, tick.getOverrun());
+            assertTrue(tick.isSpread());
+            assertFalse(tick.isBackoff());
+
+            Class<?> ping = loader.loadClass("sample.Sample$Ping");
+            Map<String, ClassDescriptor.EventMember> events = new HashMap<>();
+            for (ClassDescriptor.EventMember event : descriptor.getEvents()) events.put(event.getMethod(), event);
+            assertEquals(2, events.size());
+            assertFalse(events.get("on").isBatch());
+            assertSame(ping, events.get("on").getEventType());
+            assertTrue(events.get("onAll").isBatch());
+            assertSame(List.class, events.get("onAll").getParameterType());
+            assertSame(ping, events.get("onAll").getEventType());
+
+            Map<String, ClassDescriptor.BeanMember> beans = new HashMap<>();
+            for (ClassDescriptor.BeanMember bean : descriptor.getBeans()) beans.put(bean.getName(), bean);
+            ClassDescriptor.BeanMember clock = beans.get("clock");
+            assertArrayEquals(new String[]{null, "primary"}, clock.getQualifiers());
+            assertEquals("clock:1:2", clock.getInvoker().invoke(sample, new Object[]{1, 2L}));
+            ClassDescriptor.BeanMember seed = beans.get("seed");
+            assertTrue(seed.isField());
+            assertEquals(7, seed.getInvoker().invoke(sample, null));
+
+            Map<String, ClassDescriptor.InjectMember> injections = new HashMap<>();
+            for (ClassDescriptor.InjectMember injection : descriptor.getInjections()) injections.put(injection.getField(), injection);
+            assertEquals("clock", injections.get("injected").getName());
+            assertFalse(injections.get("injected").isProvider());
+            injections.get("injected").getWriter().set(sample, "written");
+            Field injected = type.getDeclaredField("injected");
+            injected.setAccessible(true);
+            assertEquals("written", injected.get(sample));
+            assertNull(injections.get("ids").getName());
+            assertTrue(injections.get("ids").isProvider());
+            assertSame(Long.class, injections.get("ids").getBeanType());
+        }
+    }
+
+    @Test
+    void generatedInvokersDriveTheManagers() throws Exception {
+        try (URLClassLoader loader = compile(SAMPLE)) {
+            Object sample = loader.loadClass("sample.Sample").getConstructor().newInstance();
+
+            CommandManager commands = new CommandManager();
+            commands.register(sample);
+            CommandManager.CommandResult result = commands.execute(new Silent(), "HI 2 x y").get();
+            assertEquals(CommandManager.Status.COMPLETED, result.getStatus());
+            assertEquals("greet:2:2", log(sample));
+
+            EventManager events = new EventManager();
+            events.registerInstance(sample);
+            EventManager.Event ping = (EventManager.Event) loader.loadClass("sample.Sample$Ping").getConstructor().newInstance();
+            events.dispatchAll(Arrays.asList(ping, ping));
+            assertEquals("greet:2:2pingpingbatch:2", log(sample));
+        }
+    }
+
+    @Test
+    void rejectsBatchHandlerWithoutListParameter() throws Exception {
+        String source = String.join("\n",
+                "package sample;",
+                "import com.github.ozanaaslan.modularitea.components.EventManager;",
+                "public class Broken {",
+                "    @EventManager.EventBus(batch = true)",
+                "    public void on(EventManager.Event event) {}",
+                "}");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertFalse(run(source, diagnostics));
+        assertTrue(diagnostics.getDiagnostics().stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.ERROR
+                && d.getMessage(Locale.ROOT).contains("must take a List parameter")), diagnostics.getDiagnostics().toString());
+    }
+
+    private URLClassLoader compile(String source) throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        assertTrue(run(source, diagnostics), diagnostics.getDiagnostics().toString());
+        return new URLClassLoader(new URL[]{new File(dir, "classes").toURI().toURL()}, getClass().getClassLoader());
+    }
+
+    private boolean run(String source, DiagnosticCollector<JavaFileObject> diagnostics) throws Exception {
+        File classes = new File(dir, "classes"), generated = new File(dir, "generated");
+        assertTrue(classes.mkdirs() && generated.mkdirs());
+        String className = source.substring(source.indexOf("public class ") + 13, source.indexOf(" {", source.indexOf("public class ")));
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///sample/" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classpath = new File(ClassDescriptor.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                Arrays.asList("-d", classes.getPath(), "-s", generated.getPath(), "-cp", classpath),
+                null, Collections.singletonList(file));
+        task.setProcessors(Collections.singletonList(new DescriptorProcessor()));
+        return task.call();
+    }
+
+    private static String log(Object sample) throws ReflectiveOperationException {
+        return sample.getClass().getField("log").get(sample).toString();
+    }
+
+    static class Silent implements CommandManager.CommandSender {
+        @Override
+        public void sendMessage(String message) { }
+
+        @Override
+        public boolean hasPermission(String permission) { return true; }
+    }
+}
@@ -0,0 +1,304 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventManagerTest {
+
+    private final EventManager events = new EventManager();
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void dispatchesAlongTheHierarchyInRegistrationOrder() {
+        // Registration order decides, not how specific the handler's parameter is
+        events.registerInstance(new OnDamage("a"));
+        events.registerInstance(new OnEvent("b"));
+        events.registerInstance(new OnEntity("c"));
+        events.registerInstance(new OnDamage("d"));
+
+        events.dispatch(new Damage());
+        assertEquals(Arrays.asList("a:damage", "b:event", "c:entity", "d:damage"), calls);
+
+        calls.clear();
+        events.dispatch(new Spawn());
+        assertEquals(Arrays.asList("b:event", "c:entity"), calls);
+
+        calls.clear();
+        events.dispatch(new Tick());
+        assertEquals(Collections.singletonList("b:event"), calls);
+    }
+
+    @Test
+    void laterHandlersStillRunForCancelledEvents() {
+        events.registerInstance(new Canceller());
+        events.registerInstance(new OnEntity("after"));
+
+        Damage damage = events.dispatch(new Damage());
+
+        assertTrue(damage.isCancelled());
+        assertEquals(Arrays.asList("cancel", "after:entity"), calls);
+    }
+
+    @Test
+    void repeatedDispatchesOfAClassReachTheSameHandlers() {
+        events.registerInstance(new OnEntity("only"));
+        events.registerInstance(new OnDamage("only"));
+
+        for (int i = 0; i < 3; i++) events.dispatch(new Damage());
+        events.dispatch(new Spawn());
+
+        assertEquals(Arrays.asList("only:entity", "only:damage", "only:entity", "only:damage",
+                "only:entity", "only:damage", "only:entity"), calls);
+    }
+
+    @Test
+    void linksPublicHandlersDirectly() throws Throwable {
+        List<Object> seen = new ArrayList<>();
+        Consumer<Object> listener = seen::add;
+        EventManager.EventInvoker invoker = EventManager.compileInvoker(Consumer.class.getMethod("accept", Object.class));
+
+        assertNull(captured(invoker)); // A spun class calling the method, not a wrapped handle
+        Tick tick = new Tick();
+        invoker.invoke(listener, tick);
+        assertEquals(Collections.singletonList(tick), seen);
+    }
+
+    @Test
+    void usesMethodHandlesForHandlersOutsideTheFrameworksReach() throws Throwable {
+        // EventManagerTest isn't public, so neither are its nested listeners from EventManager's point of view
+        EventManager.EventInvoker invoker = EventManager.compileInvoker(OnEntity.class.getMethod("on", Entity.class));
+        assertEquals(MethodHandle.class, captured(invoker));
+        invoker.invoke(new OnEntity("handle"), new Damage());
+
+        EventManager.EventInvoker statics = EventManager.compileInvoker(Static.class.getMethod("on", Tick.class));
+        assertEquals(MethodHandle.class, captured(statics));
+        statics.invoke(null, new Tick());
+
+        assertEquals(Collections.singletonList("handle:entity"), calls);
+        assertEquals(Collections.singletonList("static"), Static.CALLS);
+        Static.CALLS.clear();
+    }
+
+    @Test
+    void fallsBackToReflectionForInaccessibleHandlers() throws Throwable {
+        Method method = Private.class.getDeclaredMethod("on", Tick.class);
+        EventManager.EventInvoker invoker = EventManager.compileInvoker(method);
+        assertEquals(Method.class, captured(invoker));
+        assertThrows(IllegalAccessException.class, () -> invoker.invoke(new Private(), new Tick()));
+
+        method.setAccessible(true);
+        // The handler's own exception, not the InvocationTargetException around it
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> invoker.invoke(new Private(), new Tick()));
+        assertEquals("private", failure.getMessage());
+    }
+
+    @Test
+    void handlerFailuresReachTheDispatcherUnwrapped() {
+        events.registerInstance(new Failing());
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> events.dispatch(new Tick()));
+        assertEquals("failing", failure.getMessage());
+    }
+
+    @Test
+    void rebuildsTablesWhenListenersComeAndGo() {
+        OnEntity first = new OnEntity("first");
+        events.registerInstance(first);
+        events.dispatch(new Damage()); // Builds the Damage table
+
+        OnDamage second = new OnDamage("second");
+        events.registerInstance(second);
+        events.dispatch(new Damage());
+        assertTrue(events.unregister(first));
+        events.dispatch(new Damage());
+        assertFalse(events.unregister(first));
+
+        events.registerInstance(new OnDamage("third"));
+        assertTrue(events.unregister(OnDamage.class)); // Every instance of the class
+        events.dispatch(new Damage());
+
+        assertEquals(Arrays.asList("first:entity", "first:entity", "second:damage", "second:damage"), calls);
+    }
+
+    @Test
+    void dispatchInProgressKeepsItsListeners() {
+        events.registerInstance(new Registering());
+        events.registerInstance(new OnEvent("old"));
+
+        events.dispatch(new Tick());
+        assertEquals(Arrays.asList("register", "old:event"), calls);
+
+        calls.clear();
+        events.dispatch(new Spawn());
+        assertEquals(Arrays.asList("old:event", "new:entity"), calls);
+    }
+
+    @Test
+    void unregistersEverythingAModuleContributed(@TempDir File dir) throws Exception {
+        ModuleJars.EVENTS.clear();
+        ModuleJars.module(dir, "listening", null, "@" + EventManager.class.getName() + ".EventBus\n"
+                + "public void on(" + EventManager.class.getName() + ".Event event) { ModuleJars.record(\"listening:\" + event.getClass().getSimpleName()); }");
+        ModuleManager modules = new ModuleManager(dir);
+        modules.loadModules();
+        try {
+            ModuleManager.Manifest manifest = modules.getModuleWithName("listening");
+            events.registerInstance(manifest.getModule().getInstance());
+            events.registerInstance(new OnEvent("local"));
+            events.dispatch(new Tick());
+
+            assertTrue(events.unregisterAll(manifest.getClassLoader()));
+            assertFalse(events.unregisterModule(manifest));
+            events.dispatch(new Tick());
+
+            assertEquals(Arrays.asList("listening:new", "listening:Tick"), ModuleJars.EVENTS);
+            assertEquals(Arrays.asList("local:event", "local:event"), calls);
+        } finally {
+            modules.shutdown(5, TimeUnit.SECONDS);
+            modules.closeClassLoaders(Collections.emptyList());
+        }
+    }
+
+    @Test
+    void dispatchesUniformBatchesInOneCall() {
+        events.registerInstance(new Batches("batch"));
+        events.registerInstance(new OnDamage("plain"));
+        List<Damage> damages = Arrays.asList(new Damage(), new Damage(), new Damage());
+
+        assertSame(damages, events.dispatchAll(damages));
+
+        assertEquals(Arrays.asList("batch:entities=3", "plain:damage", "plain:damage", "plain:damage"), calls);
+        assertEquals(Collections.emptyList(), events.dispatchAll(Collections.emptyList()));
+    }
+
+    @Test
+    void dispatchesMixedBatchesPerHandlerInRegistrationOrder() {
+        events.registerInstance(new OnEvent("plain"));
+        Batches batches = new Batches("batch");
+        events.registerInstance(batches);
+        events.registerInstance(new TickBatches());
+        events.registerInstance(new Canceller());
+        Damage cancelled = new Damage(), damage = new Damage();
+        Spawn spawn = new Spawn();
+        Tick tick = new Tick();
+
+        events.dispatchAll(Arrays.asList(cancelled, tick, spawn, damage));
+
+        // Each handler gets all of its events at once, in submission order; batch handlers skip the
+        // events already cancelled when their turn comes
+        assertEquals(Arrays.asList("plain:event", "plain:event", "plain:event", "plain:event",
+                "batch:entities=3", "batch:ticks=1", "cancel", "cancel"), calls);
+        assertEquals(Arrays.asList(cancelled, spawn, damage), batches.entities);
+
+        calls.clear();
+        cancelled.setCancelled(true);
+        events.dispatchAll(Arrays.asList(tick, cancelled, spawn));
+        assertEquals(Collections.singletonList(spawn), batches.entities);
+    }
+
+    public static class Entity extends EventManager.Event { }
+
+    public static class Damage extends Entity { }
+
+    public static class Spawn extends Entity { }
+
+    public static class Tick extends EventManager.Event { }
+
+    public class OnEvent {
+        private final String name;
+
+        OnEvent(String name) { this.name = name; }
+
+        @EventManager.EventBus
+        public void on(EventManager.Event event) { calls.add(name + ":event"); }
+    }
+
+    public class OnEntity {
+        private final String name;
+
+        OnEntity(String name) { this.name = name; }
+
+        @EventManager.EventBus
+        public void on(Entity event) { calls.add(name + ":entity"); }
+    }
+
+    public class OnDamage {
+        private final String name;
+
+        OnDamage(String name) { this.name = name; }
+
+        @EventManager.EventBus
+        public void on(Damage event) { calls.add(name + ":damage"); }
+    }
+
+    public class Canceller {
+        @EventManager.EventBus
+        public void onDamage(Damage event) {
+            event.setCancelled(true);
+            calls.add("cancel");
+        }
+    }
+
+    public class Batches {
+        private final String name;
+        List<Entity> entities;
+
+        Batches(String name) { this.name = name; }
+
+        @EventManager.EventBus(batch = true)
+        public void onEntities(List<? extends Entity> batch) {
+            entities = new ArrayList<>(batch);
+            calls.add(name + ":entities=" + batch.size());
+        }
+    }
+
+    public class TickBatches {
+        @EventManager.EventBus(batch = true)
+        public void on(List<Tick> batch) { calls.add("batch:ticks=" + batch.size()); }
+    }
+
+    public class Registering {
+        @EventManager.EventBus
+        public void on(Tick event) {
+            calls.add("register");
+            events.registerInstance(new OnEntity("new"));
+        }
+    }
+
+    public static class Static {
+        static final List<String> CALLS = Collections.synchronizedList(new ArrayList<>());
+
+        @EventManager.EventBus
+        public static void on(Tick event) { CALLS.add("static"); }
+    }
+
+    public static class Private {
+        @SuppressWarnings("unused")
+        private void on(Tick event) { throw new IllegalStateException("private"); }
+    }
+
+    public static class Failing {
+        @EventManager.EventBus
+        public void on(Tick event) { throw new IllegalStateException("failing"); }
+    }
+
+    /**
+     * The type of the one value an invoker closes over, null for none.
+     */
+    private static Class<?> captured(EventManager.EventInvoker invoker) {
+        Field[] fields = invoker.getClass().getDeclaredFields();
+        return fields.length == 0 ? null : fields[0].getType();
+    }
+}
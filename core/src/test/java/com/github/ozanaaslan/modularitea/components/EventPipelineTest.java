@@ -0,0 +1,197 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventPipelineTest {
+
+    private final EventManager events = new EventManager();
+    private final Gate gate = new Gate();
+
+    @AfterEach
+    void tearDown() {
+        gate.release.countDown();
+        events.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void keyedEventsKeepPublishOrder() throws Exception {
+        Recorder recorder = new Recorder();
+        events.registerInstance(recorder);
+        events.configureAsync(settings(4, 16, EventPipeline.Backpressure.BLOCK));
+
+        List<CompletableFuture<TestEvent>> futures = new ArrayList<>();
+        for (int seq = 0; seq < 500; seq++)
+            for (int key = 0; key < 8; key++) futures.add(events.dispatchAsync(new TestEvent(key, seq)));
+        awaitAll(futures);
+
+        assertInPublishOrder(recorder, 8, 500);
+    }
+
+    @Test
+    void dropRejectsWhenLaneIsFull() throws Exception {
+        events.registerInstance(gate);
+        events.configureAsync(settings(1, 2, EventPipeline.Backpressure.DROP));
+
+        CompletableFuture<TestEvent> first = events.dispatchAsync(new TestEvent(null, 0));
+        assertTrue(gate.entered.await(5, TimeUnit.SECONDS));
+        CompletableFuture<TestEvent> second = events.dispatchAsync(new TestEvent(null, 1));
+        CompletableFuture<TestEvent> third = events.dispatchAsync(new TestEvent(null, 2));
+        CompletableFuture<TestEvent> rejected = events.dispatchAsync(new TestEvent(null, 3));
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+
+        gate.release.countDown();
+        awaitAll(Arrays.asList(first, second, third));
+    }
+
+    @Test
+    void callerRunsDispatchesUnkeyedEventsOnThePublisher() throws Exception {
+        events.registerInstance(gate);
+        events.registerInstance(new Recorder());
+        events.configureAsync(settings(1, 2, EventPipeline.Backpressure.CALLER_RUNS));
+
+        CompletableFuture<TestEvent> first = events.dispatchAsync(new TestEvent(null, 0));
+        assertTrue(gate.entered.await(5, TimeUnit.SECONDS));
+        events.dispatchAsync(new TestEvent(null, 1));
+        events.dispatchAsync(new TestEvent(null, 2));
+
+        TestEvent overflow = new TestEvent(null, 3);
+        CompletableFuture<TestEvent> future = events.dispatchAsync(overflow);
+        assertTrue(future.isDone());
+        assertSame(Thread.currentThread(), overflow.handledBy);
+
+        gate.release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void callerRunsBlocksKeyedEventsInsteadOfOvertaking() throws Exception {
+        Recorder recorder = new Recorder();
+        events.registerInstance(gate);
+        events.registerInstance(recorder);
+        events.configureAsync(settings(1, 2, EventPipeline.Backpressure.CALLER_RUNS));
+
+        List<CompletableFuture<TestEvent>> futures = new ArrayList<>();
+        futures.add(events.dispatchAsync(new TestEvent(0, 0)));
+        assertTrue(gate.entered.await(5, TimeUnit.SECONDS));
+        futures.add(events.dispatchAsync(new TestEvent(0, 1)));
+        futures.add(events.dispatchAsync(new TestEvent(0, 2)));
+
+        CompletableFuture<CompletableFuture<TestEvent>> publish =
+                CompletableFuture.supplyAsync(() -> events.dispatchAsync(new TestEvent(0, 3)));
+        assertThrows(TimeoutException.class, () -> publish.get(100, TimeUnit.MILLISECONDS));
+
+        gate.release.countDown();
+        futures.add(publish.get(5, TimeUnit.SECONDS));
+        awaitAll(futures);
+        assertInPublishOrder(recorder, 1, 4);
+    }
+
+    @Test
+    void shutdownDrainsAcceptedEventsThenRejects() throws Exception {
+        Recorder recorder = new Recorder();
+        events.registerInstance(recorder);
+        events.configureAsync(settings(2, 64, EventPipeline.Backpressure.BLOCK));
+
+        List<CompletableFuture<TestEvent>> futures = new ArrayList<>();
+        for (int seq = 0; seq < 200; seq++) futures.add(events.dispatchAsync(new TestEvent(seq % 2, seq / 2)));
+        assertTrue(events.shutdown(5, TimeUnit.SECONDS));
+
+        for (CompletableFuture<TestEvent> future : futures) assertTrue(future.isDone() && !future.isCompletedExceptionally());
+        assertInPublishOrder(recorder, 2, 100);
+        assertFalse(events.getPipeline().isRunning());
+
+        CompletableFuture<TestEvent> late = events.dispatchAsync(new TestEvent(0, 100));
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> late.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+    }
+
+    @Test
+    void reconfiguringKeepsOrderAcrossTheSwap() throws Exception {
+        Recorder recorder = new Recorder();
+        events.registerInstance(recorder);
+        events.configureAsync(settings(2, 8, EventPipeline.Backpressure.BLOCK));
+
+        ExecutorService publisher = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<CompletableFuture<TestEvent>>> published = publisher.submit(() -> {
+                List<CompletableFuture<TestEvent>> futures = new ArrayList<>();
+                for (int seq = 0; seq < 2000; seq++)
+                    for (int key = 0; key < 4; key++) futures.add(events.dispatchAsync(new TestEvent(key, seq)));
+                return futures;
+            });
+            for (int i = 0; i < 5; i++) {
+                Thread.sleep(2);
+                events.configureAsync(settings(1 + i % 3, 4 << i, EventPipeline.Backpressure.BLOCK));
+            }
+            awaitAll(published.get(10, TimeUnit.SECONDS));
+        } finally {
+            publisher.shutdownNow();
+        }
+
+        assertInPublishOrder(recorder, 4, 2000);
+    }
+
+    private static EventPipeline.Settings settings(int consumers, int capacity, EventPipeline.Backpressure backpressure) {
+        return EventPipeline.Settings.builder()
+                .consumers(consumers)
+                .capacity(capacity)
+                .batchSize(4)
+                .backpressure(backpressure)
+                .build();
+    }
+
+    private static void awaitAll(List<CompletableFuture<TestEvent>> futures) throws Exception {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+    }
+
+    private static void assertInPublishOrder(Recorder recorder, int keys, int perKey) {
+        for (int key = 0; key < keys; key++) {
+            List<Integer> seen = recorder.byKey.get(key);
+            assertNotNull(seen, "key " + key);
+            assertEquals(perKey, seen.size(), "key " + key);
+            for (int i = 0; i < perKey; i++) assertEquals(i, seen.get(i), "key " + key);
+        }
+    }
+
+    static class TestEvent extends EventManager.Event {
+        final int seq;
+        volatile Thread handledBy;
+
+        TestEvent(Integer key, int seq) {
+            this.seq = seq;
+            setOrderingKey(key);
+        }
+    }
+
+    static class Recorder {
+        final Map<Object, List<Integer>> byKey = new ConcurrentHashMap<>();
+
+        @EventManager.EventBus
+        public void on(TestEvent event) {
+            event.handledBy = Thread.currentThread();
+            if (event.getOrderingKey() != null)
+                byKey.computeIfAbsent(event.getOrderingKey(), k -> Collections.synchronizedList(new ArrayList<>())).add(event.seq);
+        }
+    }
+
+    /** Holds the first event's consumer until released, so the lane behind it can be filled. */
+    static class Gate {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @EventManager.EventBus
+        public void on(TestEvent event) throws InterruptedException {
+            if (event.seq != 0) return;
+            entered.countDown();
+            release.await();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel wheel;
+
+    @AfterEach
+    void tearDown() {
+        if (wheel != null) wheel.shutdown();
+    }
+
+    @Test
+    void firesDelaysSpanningSeveralRevolutionsNoEarlierThanDeadline() throws InterruptedException {
+        // 4 buckets of 5ms: one revolution is 20ms, so 75ms needs three extra rounds
+        wheel = new HashedTimingWheel(5, TimeUnit.MILLISECONDS, 4);
+        long[] delays = {1, 12, 45, 75};
+        CountDownLatch fired = new CountDownLatch(delays.length);
+        AtomicInteger early = new AtomicInteger();
+
+        long start = System.nanoTime();
+        for (long delay : delays) {
+            wheel.schedule(() -> {
+                if (System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(delay)) early.incrementAndGet();
+                fired.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, early.get());
+    }
+
+    @Test
+    void firesInDeadlineOrder() throws InterruptedException {
+        wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 8);
+        AtomicLong last = new AtomicLong(-1);
+        AtomicInteger outOfOrder = new AtomicInteger();
+        CountDownLatch fired = new CountDownLatch(3);
+
+        for (long delay : new long[]{60, 20, 40}) {
+            wheel.schedule(() -> {
+                if (last.getAndSet(delay) > delay) outOfOrder.incrementAndGet();
+                fired.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, outOfOrder.get());
+        assertEquals(60, last.get());
+    }
+
+    @Test
+    void cancelledTimeoutDoesNotFire() throws InterruptedException {
+        wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 8);
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch expired = new CountDownLatch(1);
+        CountDownLatch marker = new CountDownLatch(1);
+
+        wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS).cancel();
+        TaskManager.TimerHandle started = wheel.schedule(() -> {
+            runs.incrementAndGet();
+            expired.countDown();
+        }, 10, TimeUnit.MILLISECONDS);
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        started.cancel(); // Already expired: a late cancel is a no-op
+        wheel.schedule(marker::countDown, 60, TimeUnit.MILLISECONDS);
+
+        assertTrue(marker.await(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void rejectsAfterShutdown() {
+        wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 8);
+        wheel.shutdown();
+        assertThrows(RejectedExecutionException.class, () -> wheel.schedule(() -> { }, 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void pendingTimeoutsAreDroppedOnShutdown() throws InterruptedException {
+        wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 8);
+        AtomicInteger runs = new AtomicInteger();
+        wheel.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        wheel.shutdown();
+
+        Thread.sleep(60);
+        assertEquals(0, runs.get());
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean());
+    }
+
+    @Test
+    void valuesBelowEightMicrosAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 0; micros < 8; micros++) histogram.record(micros * 1000L);
+
+        for (int micros = 0; micros < 8; micros++)
+            assertEquals(micros * 1000L, histogram.getValueAtPercentile((micros + 1) * 100.0 / 8));
+    }
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) histogram.record(micros * 1000);
+
+        for (double percentile : new double[]{1, 10, 50, 90, 99, 99.9}) {
+            long expected = (long) Math.ceil(100_000 * percentile / 100) * 1000;
+            long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue(actual >= expected, percentile + "th: " + actual + " < " + expected);
+            assertTrue(actual <= expected * 1.125, percentile + "th: " + actual + " > " + expected + " + 12.5%");
+        }
+        assertEquals(100_000_000L, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void percentileNeverExceedsMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_001_000L);
+
+        assertEquals(1_000_001_000L, histogram.getValueAtPercentile(50));
+        assertEquals(1_000_001_000L, histogram.getMax());
+    }
+
+    @Test
+    void tracksCountMaxAndMean() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10_000);
+        histogram.record(20_000);
+        histogram.record(30_000);
+        histogram.record(-5);
+
+        assertEquals(4, histogram.getTotalCount());
+        assertEquals(30_000, histogram.getMax());
+        assertEquals(15_000, histogram.getMean());
+    }
+}
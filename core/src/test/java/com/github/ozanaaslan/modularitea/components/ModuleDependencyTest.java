@@ -0,0 +1,204 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModuleDependencyTest {
+
+    @TempDir
+    File dir;
+    private ModuleManager modules;
+
+    @BeforeEach
+    void setUp() {
+        ModuleJars.EVENTS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (modules == null) return;
+        modules.shutdown(5, TimeUnit.SECONDS);
+        modules.closeClassLoaders(Collections.emptyList());
+    }
+
+    @Test
+    void loadsDependenciesBeforeDependents() throws Exception {
+        // Jar order (alphabetical) is the reverse of the dependency order
+        ModuleJars.module(dir, "app", "service, util", "");
+        ModuleJars.module(dir, "service", "util", "");
+        ModuleJars.module(dir, "standalone", null, "");
+        ModuleJars.module(dir, "util", null, "");
+
+        for (boolean parallel : new boolean[]{true, false}) {
+            ModuleJars.EVENTS.clear();
+            if (modules != null) tearDown();
+            modules = new ModuleManager(dir);
+            modules.setParallel(parallel);
+            modules.loadModules();
+            modules.invokePrimaries();
+
+            List<String> order = names(modules.getManifests());
+            assertEquals(4, order.size());
+            assertBefore(order, "util", "service");
+            assertBefore(order, "service", "app");
+
+            assertBefore(ModuleJars.EVENTS, "util:new", "service:new");
+            assertBefore(ModuleJars.EVENTS, "service:new", "app:new");
+            assertBefore(ModuleJars.EVENTS, "util:primary", "service:primary");
+            assertBefore(ModuleJars.EVENTS, "service:primary", "app:primary");
+            assertEquals(1, Collections.frequency(ModuleJars.EVENTS, "util:primary"));
+        }
+    }
+
+    @Test
+    void skipsModulesOnOrAboveACycle() throws Exception {
+        ModuleJars.module(dir, "left", "right", "");
+        ModuleJars.module(dir, "right", "left", "");
+        ModuleJars.module(dir, "top", "left", "");
+        ModuleJars.module(dir, "free", null, "");
+
+        modules = new ModuleManager(dir);
+        modules.loadModules();
+
+        assertEquals(Collections.singletonList("free"), names(modules.getManifests()));
+        assertNull(modules.getModuleWithName("left"));
+        assertNull(modules.getModuleWithName("top"));
+        assertEquals(Collections.singletonList("free:new"), ModuleJars.EVENTS);
+    }
+
+    @Test
+    void loadsModuleWithMissingDependencyAnyway() throws Exception {
+        ModuleJars.module(dir, "orphan", "ghost", "");
+
+        modules = new ModuleManager(dir);
+        modules.loadModules();
+
+        assertEquals(Collections.singletonList("orphan"), names(modules.getManifests()));
+        assertNotNull(modules.getModuleWithName("ORPHAN"));
+    }
+
+    @Test
+    void skipsDependentsOfAModuleThatFailsToLoad() throws Exception {
+        ModuleJars.module(dir, "broken", null, "static { if (true) throw new IllegalStateException(\"boom\"); }");
+        ModuleJars.module(dir, "fine", null, "");
+        ModuleJars.module(dir, "later", "fine", "");
+        ModuleJars.module(dir, "needsbroken", "broken", "");
+        ModuleJars.module(dir, "top", "needsbroken, later", "");
+
+        for (boolean parallel : new boolean[]{true, false}) {
+            if (modules != null) tearDown();
+            ModuleJars.EVENTS.clear();
+            modules = new ModuleManager(dir);
+            modules.setParallel(parallel);
+            modules.loadModules();
+            modules.invokePrimaries();
+
+            assertEquals(Arrays.asList("fine", "later"), names(modules.getManifests()));
+            assertNull(modules.getModuleWithName("broken"));
+            assertNull(modules.getModuleWithName("needsbroken"));
+            assertNull(modules.getModuleWithName("top"));
+            assertEquals(Arrays.asList("fine:new", "later:new", "fine:primary", "later:primary"), ModuleJars.EVENTS);
+        }
+    }
+
+    @Test
+    void dependentSeesClassesOfItsDependency() throws Exception {
+        ModuleJars.module(dir, "lib", null, "public static String greet() { return \"hi\"; }");
+        ModuleJars.module(dir, "user", "lib",
+                "public void secondaryEntrypoint() { ModuleJars.record(\"user:\" + mod.lib.Main.greet()); }");
+
+        modules = new ModuleManager(dir);
+        modules.loadModules();
+        modules.invokeSecondaries();
+
+        assertTrue(ModuleJars.EVENTS.contains("user:hi"), ModuleJars.EVENTS.toString());
+    }
+
+    @Test
+    void dependentSeesClassesOfAnUnindexedDependency() throws Exception {
+        File lib = ModuleJars.module(dir, "lib", null, "public static String greet() { return \"hi\"; }");
+        ModuleJars.module(dir, "user", "lib",
+                "public void secondaryEntrypoint() { ModuleJars.record(\"user:\" + mod.lib.Main.greet()); }");
+        // A stub in front of the jar (as in a self-extracting archive) shifts every offset the central
+        // directory records, so the loader can't index it while JarFile still reads it
+        byte[] content = Files.readAllBytes(lib.toPath());
+        byte[] shifted = new byte[content.length + 64];
+        System.arraycopy(content, 0, shifted, 64, content.length);
+        Files.write(lib.toPath(), shifted);
+
+        modules = new ModuleManager(dir);
+        modules.loadModules();
+        modules.invokeSecondaries();
+
+        assertEquals(Arrays.asList("lib", "user"), names(modules.getManifests()));
+        assertTrue(ModuleJars.EVENTS.contains("user:hi"), ModuleJars.EVENTS.toString());
+    }
+
+    @Test
+    void dependentSeesResourcesOfItsDependencies() throws Exception {
+        ModuleJars.module(dir, "base", null, "", map("shared.txt", "base", "base.txt", "base only"));
+        ModuleJars.module(dir, "lib", "base", "", map("shared.txt", "lib",
+                "META-INF/services/java.lang.Runnable", "mod.lib.Main\n"));
+        ModuleJars.module(dir, "user", "lib", "", map("shared.txt", "user"));
+
+        modules = new ModuleManager(dir);
+        modules.loadModules();
+        ClassLoader user = modules.getModuleWithName("user").getClassLoader();
+
+        // Its own jar first, then the dependencies, transitively
+        assertEquals("user", read(user.getResource("shared.txt")));
+        assertEquals("base only", read(user.getResource("base.txt")));
+        List<String> shared = new ArrayList<>();
+        for (URL url : Collections.list(user.getResources("shared.txt"))) shared.add(read(url));
+        assertEquals(Arrays.asList("user", "lib", "base"), shared);
+        try (InputStream in = user.getResourceAsStream("base.txt")) {
+            assertNotNull(in);
+        }
+        assertNull(modules.getModuleWithName("base").getClassLoader().getResource("mod/lib/Main.class"));
+
+        ModuleJars.EVENTS.clear();
+        for (Runnable provider : ServiceLoader.load(Runnable.class, user)) provider.run();
+        assertEquals(Arrays.asList("lib:new", "lib:run"), ModuleJars.EVENTS);
+    }
+
+    private static List<String> names(List<ModuleManager.Manifest> manifests) {
+        List<String> names = new ArrayList<>();
+        for (ModuleManager.Manifest manifest : manifests) names.add(manifest.getName());
+        return names;
+    }
+
+    private static Map<String, String> map(String... pairs) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) map.put(pairs[i], pairs[i + 1]);
+        return map;
+    }
+
+    private static String read(URL url) throws IOException {
+        assertNotNull(url);
+        try (InputStream in = url.openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[256];
+            for (int n; (n = in.read(buffer)) > 0; ) out.write(buffer, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void assertBefore(List<String> order, String first, String second) {
+        assertTrue(order.contains(first) && order.contains(second), order.toString());
+        assertTrue(order.indexOf(first) < order.indexOf(second), first + " should precede " + second + " in " + order);
+    }
+}
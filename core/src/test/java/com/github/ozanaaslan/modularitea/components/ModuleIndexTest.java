@@ -0,0 +1,119 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModuleIndexTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void reusesEntryOfUnchangedJar() throws Exception {
+        File jar = ModuleJars.manifestOnly(dir, "alpha", "beta");
+        ModuleIndex index = new ModuleIndex(new File(dir, ".modules.idx"));
+
+        ModuleIndex.Entry first = index.get(jar);
+        assertEquals("alpha", first.attributes.getProperty("name"));
+        assertEquals("beta", first.attributes.getProperty("depends"));
+        assertSame(first, index.get(jar));
+    }
+
+    @Test
+    void rescansJarWhoseContentChanged() throws Exception {
+        File jar = ModuleJars.manifestOnly(dir, "alpha", null);
+        ModuleIndex index = new ModuleIndex(new File(dir, ".modules.idx"));
+        ModuleIndex.Entry before = index.get(jar);
+
+        File rebuilt = new File(dir, "rebuilt");
+        assertTrue(rebuilt.mkdir());
+        Files.copy(ModuleJars.manifestOnly(rebuilt, "alpha", "beta, gamma").toPath(), jar.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        assertTrue(jar.setLastModified(before.modified + 2000));
+
+        ModuleIndex.Entry after = index.get(jar);
+        assertNotSame(before, after);
+        assertEquals("beta, gamma", after.attributes.getProperty("depends"));
+    }
+
+    @Test
+    void reusesAttributesOfTouchedJarWithSameChecksum() throws Exception {
+        File jar = ModuleJars.manifestOnly(dir, "alpha", "beta");
+        ModuleIndex index = new ModuleIndex(new File(dir, ".modules.idx"));
+        ModuleIndex.Entry before = index.get(jar);
+
+        assertTrue(jar.setLastModified(before.modified + 2000));
+        ModuleIndex.Entry after = index.get(jar);
+
+        assertNotSame(before, after);
+        assertEquals(jar.lastModified(), after.modified);
+        assertEquals(before.crc, after.crc);
+        assertSame(before.attributes, after.attributes);
+    }
+
+    @Test
+    void persistsEntriesAcrossInstances() throws Exception {
+        File jar = ModuleJars.manifestOnly(dir, "alpha", "beta");
+        File file = new File(dir, ".modules.idx");
+        ModuleIndex index = new ModuleIndex(file);
+        ModuleIndex.Entry written = index.get(jar);
+        index.save(Collections.singletonList(jar));
+        assertTrue(file.isFile());
+
+        // Make the jar unreadable: a cache hit must not open it
+        Files.write(jar.toPath(), new byte[(int) jar.length()]);
+        assertTrue(jar.setLastModified(written.modified));
+
+        ModuleIndex.Entry read = new ModuleIndex(file).get(jar);
+        assertEquals(written.crc, read.crc);
+        assertEquals("beta", read.attributes.getProperty("depends"));
+    }
+
+    @Test
+    void forgetsJarsThatAreGone() throws Exception {
+        File alpha = ModuleJars.manifestOnly(dir, "alpha", null);
+        File beta = ModuleJars.manifestOnly(dir, "beta", null);
+        File file = new File(dir, ".modules.idx");
+        ModuleIndex index = new ModuleIndex(file);
+        index.get(alpha);
+        ModuleIndex.Entry cached = index.get(beta);
+        index.save(Arrays.asList(alpha, beta));
+        index.save(Collections.singletonList(alpha));
+
+        // Same size and mtime, but no longer a jar: only a rescan notices
+        Files.write(beta.toPath(), new byte[(int) beta.length()]);
+        assertTrue(beta.setLastModified(cached.modified));
+
+        ModuleIndex reloaded = new ModuleIndex(file);
+        assertEquals("alpha", reloaded.get(alpha).attributes.getProperty("name"));
+        assertThrows(IOException.class, () -> reloaded.get(beta));
+    }
+
+    @Test
+    void rebuildsIndexOfUnknownVersion() throws Exception {
+        File jar = ModuleJars.manifestOnly(dir, "alpha", "beta");
+        File file = new File(dir, ".modules.idx");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(0x4D544958);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeUTF("alpha.jar");
+        }
+
+        ModuleIndex index = new ModuleIndex(file);
+        assertEquals("beta", index.get(jar).attributes.getProperty("depends"));
+        index.save(Collections.singletonList(jar));
+        assertEquals("beta", new ModuleIndex(file).get(jar).attributes.getProperty("depends"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Builds module jars for tests. Module main classes are compiled on the fly and report what
+ * happens to them through {@link #record}, since they live in their own class loaders.
+ */
+public final class ModuleJars {
+
+    public static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+    /** Run by a module's shutdownEntrypoint, by module name; may throw or block. */
+    public static final Map<String, Runnable> SHUTDOWN_ACTIONS = new ConcurrentHashMap<>();
+
+    private ModuleJars() {}
+
+    public static void record(String event) {
+        EVENTS.add(event);
+    }
+
+    public static void shutdown(String name) {
+        record(name + ":shutdown");
+        Runnable action = SHUTDOWN_ACTIONS.get(name);
+        if (action != null) action.run();
+    }
+
+    /**
+     * A jar holding only manifest.properties.
+     */
+    static File manifestOnly(File dir, String name, String depends) throws IOException {
+        File jar = new File(dir, name + ".jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            writeManifest(out, name, depends, "mod." + name + ".Main");
+        }
+        return jar;
+    }
+
+    /**
+     * A module whose main class {@code mod.<name>.Main} records its construction, primaryEntrypoint,
+     * shutdownEntrypoint and run() (it is a Runnable, so it can be listed as a service provider) as
+     * "name:event". 'members' is spliced into the class body and may use the framework's classes and
+     * those of modules already built in the same directory.
+     */
+    static File module(File dir, String name, String depends, String members) throws IOException {
+        return module(dir, name, depends, members, Collections.emptyMap());
+    }
+
+    /**
+     * As {@link #module(File, String, String, String)}, with extra jar entries by path.
+     */
+    static File module(File dir, String name, String depends, String members, Map<String, String> resources) throws IOException {
+        String source = "package mod." + name + ";\n"
+                + "import " + ModuleJars.class.getName() + ";\n"
+                + "public class Main implements Runnable {\n"
+                + "    public Main() { ModuleJars.record(\"" + name + ":new\"); }\n"
+                + "    public void run() { ModuleJars.record(\"" + name + ":run\"); }\n"
+                + "    public void primaryEntrypoint() { ModuleJars.record(\"" + name + ":primary\"); }\n"
+                + "    public void shutdownEntrypoint() { ModuleJars.shutdown(\"" + name + "\"); }\n"
+                + members + "\n"
+                + "}\n";
+
+        Path work = Files.createDirectories(dir.toPath().resolve(".build").resolve(name));
+        Path sourceFile = work.resolve("src/mod/" + name + "/Main.java");
+        Files.createDirectories(sourceFile.getParent());
+        Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+        Path classes = Files.createDirectories(work.resolve("classes"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StringBuilder classpath = new StringBuilder(new File(ModuleJars.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath())
+                .append(File.pathSeparator).append(new File(ModuleManager.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getPath());
+        File[] built = dir.listFiles((d, file) -> file.endsWith(".jar"));
+        if (built != null) for (File jar : built) classpath.append(File.pathSeparator).append(jar.getPath());
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int status = compiler.run(null, null, errors, "-d", classes.toString(), "-cp", classpath.toString(), sourceFile.toString());
+        if (status != 0) throw new IllegalStateException("Module " + name + " did not compile:\n" + errors);
+
+        File jar = new File(dir, name + ".jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            writeManifest(out, name, depends, "mod." + name + ".Main");
+            out.putNextEntry(new JarEntry("mod/" + name + "/Main.class"));
+            Files.copy(classes.resolve("mod/" + name + "/Main.class"), out);
+            out.closeEntry();
+            for (Map.Entry<String, String> resource : resources.entrySet()) {
+                out.putNextEntry(new JarEntry(resource.getKey()));
+                out.write(resource.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static void writeManifest(JarOutputStream out, String name, String depends, String main) throws IOException {
+        Properties attributes = new Properties();
+        attributes.setProperty("name", name);
+        attributes.setProperty("version", "1.0");
+        attributes.setProperty("author", "test");
+        attributes.setProperty("main", main);
+        if (depends != null) attributes.setProperty("depends", depends);
+        out.putNextEntry(new JarEntry("manifest.properties"));
+        attributes.store(out, null);
+        out.closeEntry();
+    }
+}
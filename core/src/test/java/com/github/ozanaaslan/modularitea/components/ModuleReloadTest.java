@@ -0,0 +1,188 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModuleReloadTest {
+
+    private static final String COMPONENTS = "com.github.ozanaaslan.modularitea.components.";
+
+    @TempDir
+    File dir;
+    private ModuleManager modules;
+    private final CommandManager commands = new CommandManager();
+    private final CommandBindingTest.Sender sender = new CommandBindingTest.Sender();
+
+    @BeforeEach
+    void setUp() {
+        ModuleJars.EVENTS.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("modularitea.modules.quietPeriod");
+        System.clearProperty("modularitea.modules.leakCheckDelay");
+        if (modules == null) return;
+        modules.shutdown(5, TimeUnit.SECONDS);
+        modules.closeClassLoaders(Collections.emptyList());
+    }
+
+    @Test
+    void reloadsChangedJarTogetherWithItsDependents() throws Exception {
+        File base = ModuleJars.module(dir, "base", null, "public static String version() { return \"v1\"; }");
+        ModuleJars.module(dir, "user", "base",
+                "public void secondaryEntrypoint() { ModuleJars.record(\"user:\" + mod.base.Main.version()); }");
+        ModuleJars.module(dir, "other", null, "");
+        load();
+        modules.invokePrimaries();
+        modules.invokeSecondaries();
+        ClassLoader oldUser = modules.getModuleWithName("user").getClassLoader();
+        ClassLoader oldOther = modules.getModuleWithName("other").getClassLoader();
+
+        ModuleJars.module(dir, "base", null, "public static String version() { return \"v2\"; }");
+        ModuleJars.EVENTS.clear();
+        modules.reload(Collections.singletonList(base));
+
+        // Dependents stop first and start last; each runs again what it had run before
+        assertEquals(Arrays.asList("user:shutdown", "base:shutdown", "base:new", "base:primary",
+                "user:new", "user:primary", "user:v2"), ModuleJars.EVENTS);
+        List<String> order = names(modules.getManifests());
+        assertEquals(new HashSet<>(Arrays.asList("base", "other", "user")), new HashSet<>(order));
+        assertTrue(order.indexOf("base") < order.indexOf("user"), order.toString());
+        assertNotSame(oldUser, modules.getModuleWithName("user").getClassLoader());
+        assertSame(oldOther, modules.getModuleWithName("other").getClassLoader());
+    }
+
+    @Test
+    void unloadUnregistersCommandsTasksAndServices() throws Exception {
+        File plugin = ModuleJars.module(dir, "plugin", null,
+                "@" + COMPONENTS + "CommandManager.Command(name = \"reloadtestping\")\n"
+                        + "public void ping(" + COMPONENTS + "CommandManager.CommandSender sender) { ModuleJars.record(\"plugin:ping\"); }\n"
+                        + "@" + COMPONENTS + "TaskManager.Task(delay = 1, interval = 1, unit = java.util.concurrent.TimeUnit.HOURS)\n"
+                        + "public void reloadTestHeartbeat() { }\n"
+                        + "@" + COMPONENTS + "ServiceManager.ServiceBean(\"reloadtest.greeting\")\n"
+                        + "public CharSequence greeting() { return \"hello\"; }\n");
+        load();
+        assertEquals(CommandManager.Status.COMPLETED, commands.execute(sender, "reloadtestping").get().getStatus());
+        assertTrue(hasTask("reloadTestHeartbeat"));
+        assertEquals("hello", ServiceManager.getInstance().lookup(CharSequence.class, "reloadtest.greeting"));
+
+        assertTrue(plugin.delete());
+        modules.reload(Collections.singletonList(plugin));
+
+        assertNull(modules.getModuleWithName("plugin"));
+        assertTrue(modules.getManifests().isEmpty());
+        assertEquals(CommandManager.Status.UNKNOWN_COMMAND, commands.execute(sender, "reloadtestping").get().getStatus());
+        assertFalse(hasTask("reloadTestHeartbeat"));
+        assertNull(ServiceManager.getInstance().lookup(CharSequence.class, "reloadtest.greeting"));
+    }
+
+    @Test
+    void picksUpModuleWaitingForAMissingDependency() throws Exception {
+        // Compiled before 'ghost' exists, so it can only look the class up at run time
+        ModuleJars.module(dir, "orphan", "ghost",
+                "public void secondaryEntrypoint() throws Exception { Class.forName(\"mod.ghost.Main\", false, getClass().getClassLoader()); ModuleJars.record(\"orphan:linked\"); }");
+        load();
+        modules.invokePrimaries();
+
+        File ghost = ModuleJars.module(dir, "ghost", null, "");
+        ModuleJars.EVENTS.clear();
+        modules.reload(Collections.singletonList(ghost));
+
+        assertEquals(Arrays.asList("orphan:shutdown", "ghost:new", "ghost:primary", "orphan:new", "orphan:primary"), ModuleJars.EVENTS);
+        assertEquals(Arrays.asList("ghost", "orphan"), names(modules.getManifests()));
+        modules.invokeSecondaries();
+        assertTrue(ModuleJars.EVENTS.contains("orphan:linked"), ModuleJars.EVENTS.toString());
+    }
+
+    @Test
+    void reportsUnloadedLoadersThatStayReachable() throws Exception {
+        System.setProperty("modularitea.modules.leakCheckDelay", "0");
+        File lib = ModuleJars.module(dir, "lib", null, "");
+        load();
+        ClassLoader leaked = modules.getModuleWithName("lib").getClassLoader();
+
+        assertTrue(lib.delete());
+        modules.reload(Collections.singletonList(lib));
+
+        PrintStream err = System.err;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(captured, true, "UTF-8"));
+        try {
+            modules.checkLeaks();
+            modules.checkLeaks(); // Reported once
+        } finally {
+            System.setErr(err);
+        }
+        String report = new String(captured.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(report.contains("Possible class loader leak: module lib"), report);
+        assertEquals(report.indexOf("module lib"), report.lastIndexOf("module lib"), report);
+        assertNotNull(leaked);
+    }
+
+    @Test
+    void watcherLoadsJarsDroppedIntoTheDirectory() throws Exception {
+        System.setProperty("modularitea.modules.quietPeriod", "50");
+        load();
+        modules.watch();
+
+        ModuleJars.module(dir, "late", null, "");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (modules.getModuleWithName("late") == null && System.nanoTime() < deadline) Thread.sleep(20);
+
+        assertNotNull(modules.getModuleWithName("late"));
+        assertEquals(Arrays.asList("late:new", "late:primary"), ModuleJars.EVENTS);
+    }
+
+    /**
+     * Loads the directory and wires modules to the managers like the application does.
+     */
+    private void load() {
+        modules = new ModuleManager(dir);
+        modules.setListener(new ModuleManager.ModuleListener() {
+            @Override
+            public void moduleLoaded(ModuleManager.Manifest manifest) {
+                intertwine(manifest.getModule().getInstance());
+            }
+
+            @Override
+            public void moduleUnloading(ModuleManager.Manifest manifest) {
+                commands.unregisterAll(manifest.getClassLoader());
+                TaskManager.getInstance().unregisterAll(manifest.getClassLoader());
+                ServiceManager.getInstance().unregisterAll(manifest.getClassLoader());
+            }
+        });
+        modules.loadModules();
+        for (ModuleManager.Manifest manifest : modules.getManifests()) intertwine(manifest.getModule().getInstance());
+    }
+
+    private void intertwine(Object instance) {
+        ServiceManager.getInstance().registerBeans(instance);
+        commands.register(instance);
+        TaskManager.getInstance().register(instance);
+    }
+
+    private static boolean hasTask(String method) {
+        for (TaskManager.TaskMetrics task : TaskManager.getInstance().getTaskMetrics()) {
+            if (task.getName().endsWith("#" + method)) return true;
+        }
+        return false;
+    }
+
+    private static List<String> names(List<ModuleManager.Manifest> manifests) {
+        List<String> names = new ArrayList<>();
+        for (ModuleManager.Manifest manifest : manifests) names.add(manifest.getName());
+        return names;
+    }
+}
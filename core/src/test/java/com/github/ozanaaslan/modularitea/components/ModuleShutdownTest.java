@@ -0,0 +1,95 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModuleShutdownTest {
+
+    @TempDir
+    File dir;
+    private ModuleManager modules;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ModuleJars.EVENTS.clear();
+        ModuleJars.SHUTDOWN_ACTIONS.clear();
+        ModuleJars.module(dir, "util", null, "");
+        ModuleJars.module(dir, "service", "util", "");
+        ModuleJars.module(dir, "app", "service", "");
+        ModuleJars.module(dir, "standalone", null, "");
+        modules = new ModuleManager(dir);
+        modules.loadModules();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        ModuleJars.SHUTDOWN_ACTIONS.clear();
+        modules.closeClassLoaders(Collections.emptyList());
+    }
+
+    @Test
+    void stopsDependentsBeforeTheirDependencies() {
+        modules.invokePrimaries();
+        ModuleJars.EVENTS.clear();
+
+        ModuleManager.ShutdownReport report = modules.shutdown(5, TimeUnit.SECONDS);
+
+        assertTrue(report.isClean());
+        List<String> events = ModuleJars.EVENTS;
+        assertEquals(4, events.size(), events.toString());
+        assertTrue(events.indexOf("app:shutdown") < events.indexOf("service:shutdown"), events.toString());
+        assertTrue(events.indexOf("service:shutdown") < events.indexOf("util:shutdown"), events.toString());
+    }
+
+    @Test
+    void failingModuleIsReportedAndDoesNotHoldBackItsDependencies() {
+        ModuleJars.SHUTDOWN_ACTIONS.put("service", () -> { throw new IllegalStateException("cannot stop"); });
+        modules.invokePrimaries();
+
+        ModuleManager.ShutdownReport report = modules.shutdown(5, TimeUnit.SECONDS);
+
+        assertEquals(Collections.singletonList("service"), report.getFailed());
+        assertTrue(report.getMissed().isEmpty());
+        assertTrue(ModuleJars.EVENTS.contains("util:shutdown"));
+    }
+
+    @Test
+    void reportsModulesStillStoppingAtTheDeadline() {
+        ModuleJars.SHUTDOWN_ACTIONS.put("standalone", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        modules.invokePrimaries();
+
+        long start = System.nanoTime();
+        ModuleManager.ShutdownReport report = modules.shutdown(200, TimeUnit.MILLISECONDS);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+        assertEquals(Collections.singletonList("standalone"), report.getMissed());
+        assertTrue(report.getFailed().isEmpty());
+        assertTrue(ModuleJars.EVENTS.contains("util:shutdown"));
+    }
+
+    @Test
+    void skipsModulesThatNeverStarted() {
+        ModuleManager.ShutdownReport report = modules.shutdown(5, TimeUnit.SECONDS);
+
+        assertTrue(report.isClean());
+        assertFalse(ModuleJars.EVENTS.stream().anyMatch(e -> e.endsWith(":shutdown")), ModuleJars.EVENTS.toString());
+    }
+}
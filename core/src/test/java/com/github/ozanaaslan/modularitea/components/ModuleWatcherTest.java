@@ -0,0 +1,74 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModuleWatcherTest {
+
+    private static final long QUIET = 500;
+
+    private final ModuleWatcher.Settling settling = new ModuleWatcher.Settling(QUIET);
+    private final Map<String, Long> sizes = new HashMap<>();
+
+    @Test
+    void settlesOnceQuietForTheQuietPeriod() {
+        touch("a.jar", 100, 0);
+
+        assertEquals(Collections.emptyList(), settled(QUIET - 1));
+        assertEquals(Collections.singletonList("a.jar"), settled(QUIET));
+        assertEquals(Collections.emptyList(), settled(10 * QUIET)); // Forgotten until touched again
+    }
+
+    @Test
+    void newEventRestartsTheQuietPeriod() {
+        touch("a.jar", 100, 0);
+        touch("a.jar", 200, 400);
+
+        assertEquals(Collections.emptyList(), settled(QUIET));
+        assertEquals(Collections.singletonList("a.jar"), settled(400 + QUIET));
+    }
+
+    @Test
+    void waitsAnotherQuietPeriodWhileTheSizeStillChanges() {
+        touch("a.jar", 100, 0);
+        sizes.put("a.jar", 150L); // Written to without an event
+
+        assertEquals(Collections.emptyList(), settled(QUIET));
+        assertEquals(Collections.emptyList(), settled(2 * QUIET - 1));
+        assertEquals(Collections.singletonList("a.jar"), settled(2 * QUIET));
+    }
+
+    @Test
+    void settlesDeletedJarsAndEachJarOnItsOwnClock() {
+        touch("gone.jar", -1, 0);
+        touch("b.jar", 10, 300);
+
+        assertEquals(Collections.singletonList("gone.jar"), settled(QUIET));
+        assertEquals(Collections.singletonList("b.jar"), settled(300 + QUIET));
+
+        touch("c.jar", 1, 1000);
+        touch("d.jar", 1, 1000);
+        assertEquals(Arrays.asList("c.jar", "d.jar"), sorted(settled(1000 + QUIET)));
+    }
+
+    private void touch(String name, long size, long now) {
+        sizes.put(name, size);
+        settling.touched(name, size, now);
+    }
+
+    private List<String> settled(long now) {
+        return settling.settled(name -> sizes.getOrDefault(name, -1L), now);
+    }
+
+    private static List<String> sorted(List<String> names) {
+        Collections.sort(names);
+        return names;
+    }
+}
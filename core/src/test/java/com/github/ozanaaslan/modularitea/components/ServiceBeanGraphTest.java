@@ -0,0 +1,215 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ServiceManager is a process-wide singleton, so every test uses bean types of its own.
+ */
+class ServiceBeanGraphTest {
+
+    private static final int LEVELS = 8, WIDTH = 30;
+
+    private final ServiceManager services = ServiceManager.getInstance();
+
+    @TempDir
+    File dir;
+
+    @Test
+    void buildsBeansAfterTheirDependencies() {
+        OrderedProvider provider = new OrderedProvider();
+        services.registerBeans(provider);
+
+        List<String> order = provider.built;
+        assertEquals(4, order.size());
+        assertTrue(order.indexOf("config") < order.indexOf("repository"));
+        assertTrue(order.indexOf("clock") < order.indexOf("repository"));
+        assertTrue(order.indexOf("repository") < order.indexOf("service"));
+
+        Service service = services.lookup(Service.class, null);
+        assertNotNull(service);
+        assertSame(services.lookup(Repository.class, null), service.repository);
+        assertSame(services.lookup(Config.class, "config"), service.repository.config);
+    }
+
+    @Test
+    void buildsWideGraphsInParallel() throws Exception {
+        // LEVELS x WIDTH beans, each taking two of the level below; compiled once and loaded
+        // repeatedly so every round has bean types of its own
+        StringBuilder source = new StringBuilder("package graph;\npublic class Provider {\n");
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < WIDTH; i++) {
+                String type = "B" + level + "_" + i;
+                if (level == 0) {
+                    source.append("    public static class ").append(type).append(" {}\n")
+                            .append("    @").append(ServiceManager.ServiceBean.class.getCanonicalName())
+                            .append(" ").append(type).append(" b").append(type).append("() { return new ").append(type).append("(); }\n");
+                    continue;
+                }
+                String left = "B" + (level - 1) + "_" + i, right = "B" + (level - 1) + "_" + (i + 1) % WIDTH;
+                source.append("    public static class ").append(type).append(" {\n")
+                        .append("        ").append(type).append("(").append(left).append(" l, ").append(right).append(" r) {\n")
+                        .append("            if (l == null || r == null) throw new IllegalStateException(\"missing dependency\");\n")
+                        .append("        }\n    }\n")
+                        .append("    @").append(ServiceManager.ServiceBean.class.getCanonicalName())
+                        .append(" ").append(type).append(" b").append(type).append("(").append(left).append(" l, ").append(right)
+                        .append(" r) { return new ").append(type).append("(l, r); }\n");
+            }
+        }
+        source.append("}\n");
+
+        File sourceFile = new File(dir, "graph/Provider.java"), classes = new File(dir, "classes");
+        assertTrue(sourceFile.getParentFile().mkdirs() && classes.mkdirs());
+        Files.write(sourceFile.toPath(), source.toString().getBytes(StandardCharsets.UTF_8));
+        String classpath = new File(ServiceManager.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, errors,
+                "-proc:none", "-d", classes.getPath(), "-cp", classpath, sourceFile.getPath()), errors.toString());
+
+        for (int round = 0; round < 10; round++) {
+            try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader())) {
+                services.registerBeans(loader.loadClass("graph.Provider").getConstructor().newInstance());
+                for (int level = 0; level < LEVELS; level++) {
+                    for (int i = 0; i < WIDTH; i++) {
+                        Class<?> type = loader.loadClass("graph.Provider$B" + level + "_" + i);
+                        assertNotNull(services.lookup(type, null), "round " + round + ": " + type.getSimpleName());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void skipsBeansOnACycleAndBuildsTheRest() {
+        services.registerBeans(new CyclicProvider());
+
+        assertNull(services.lookup(Left.class, null));
+        assertNull(services.lookup(Right.class, null));
+        assertNull(services.lookup(AboveCycle.class, null));
+        assertNotNull(services.lookup(Independent.class, null));
+    }
+
+    @Test
+    void skipsBeansDependingOnAFailedBean() {
+        services.registerBeans(new FailingProvider());
+
+        assertNull(services.lookup(Broken.class, null));
+        assertNull(services.lookup(DependsOnBroken.class, null));
+    }
+
+    @Test
+    void qualifiesParametersByInjectServiceName() {
+        services.registerBeans(new QualifiedProvider());
+
+        Consumer consumer = services.lookup(Consumer.class, null);
+        assertNotNull(consumer);
+        assertEquals("secondary", consumer.endpoint.name);
+        assertNull(services.lookup(Unqualified.class, null), "two candidates without a name are ambiguous");
+    }
+
+    static class Config {}
+    static class Clock {}
+    static class Repository {
+        final Config config;
+        Repository(Config config) { this.config = config; }
+    }
+    static class Service {
+        final Repository repository;
+        Service(Repository repository) { this.repository = repository; }
+    }
+
+    static class OrderedProvider {
+        final List<String> built = new CopyOnWriteArrayList<>();
+
+        // Declared dependents-first, so declaration order alone would get it wrong
+        @ServiceManager.ServiceBean
+        Service service(Repository repository) {
+            built.add("service");
+            return new Service(repository);
+        }
+
+        @ServiceManager.ServiceBean
+        Repository repository(Config config, Clock clock) {
+            built.add("repository");
+            return new Repository(config);
+        }
+
+        @ServiceManager.ServiceBean
+        Clock clock() {
+            built.add("clock");
+            return new Clock();
+        }
+
+        @ServiceManager.ServiceBean
+        Config config() {
+            built.add("config");
+            return new Config();
+        }
+    }
+
+    static class Left {}
+    static class Right {}
+    static class AboveCycle {}
+    static class Independent {}
+
+    static class CyclicProvider {
+        @ServiceManager.ServiceBean
+        Left left(Right right) { return new Left(); }
+
+        @ServiceManager.ServiceBean
+        Right right(Left left) { return new Right(); }
+
+        @ServiceManager.ServiceBean
+        AboveCycle above(Left left) { return new AboveCycle(); }
+
+        @ServiceManager.ServiceBean
+        Independent independent() { return new Independent(); }
+    }
+
+    static class Broken {}
+    static class DependsOnBroken {}
+
+    static class FailingProvider {
+        @ServiceManager.ServiceBean
+        Broken broken() { throw new IllegalStateException("boom"); }
+
+        @ServiceManager.ServiceBean
+        DependsOnBroken dependent(Broken broken) { return new DependsOnBroken(); }
+    }
+
+    static class Endpoint {
+        final String name;
+        Endpoint(String name) { this.name = name; }
+    }
+    static class Consumer {
+        final Endpoint endpoint;
+        Consumer(Endpoint endpoint) { this.endpoint = endpoint; }
+    }
+    static class Unqualified {}
+
+    static class QualifiedProvider {
+        @ServiceManager.ServiceBean("primary")
+        Endpoint primary() { return new Endpoint("primary"); }
+
+        @ServiceManager.ServiceBean("secondary")
+        Endpoint secondary() { return new Endpoint("secondary"); }
+
+        @ServiceManager.ServiceBean
+        Consumer consumer(@ServiceManager.InjectService("secondary") Endpoint endpoint) { return new Consumer(endpoint); }
+
+        @ServiceManager.ServiceBean
+        Unqualified unqualified(Endpoint endpoint) { return new Unqualified(); }
+    }
+}
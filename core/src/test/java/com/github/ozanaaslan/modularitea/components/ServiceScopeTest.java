@@ -0,0 +1,98 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ServiceManager is a process-wide singleton, so every test uses bean types of its own.
+ */
+class ServiceScopeTest {
+
+    private final ServiceManager services = ServiceManager.getInstance();
+
+    @Test
+    void lazyBeanIsBuiltOnceOnFirstLookup() {
+        LazyProvider provider = new LazyProvider();
+        services.registerBeans(provider);
+        assertEquals(0, provider.lazyBuilds.get());
+
+        LazyBean first = services.lookup(LazyBean.class, null);
+        assertNotNull(first);
+        assertSame(first, services.lookup(LazyBean.class, "lazy"));
+        assertEquals(1, provider.lazyBuilds.get());
+    }
+
+    @Test
+    void prototypeAndThreadBeansAreCreatedPerLookupAndPerThread() throws Exception {
+        services.registerBeans(new ScopedProvider());
+
+        assertNotSame(services.lookup(PrototypeBean.class, null), services.lookup(PrototypeBean.class, null));
+
+        ThreadBean mine = services.lookup(ThreadBean.class, null);
+        assertSame(mine, services.lookup(ThreadBean.class, null));
+        assertNotSame(mine, CompletableFuture.supplyAsync(() -> services.lookup(ThreadBean.class, null)).get());
+    }
+
+    @Test
+    void providerFieldResolvesOnEveryGet() {
+        DependentProvider provider = new DependentProvider();
+        services.registerBeans(provider);
+        Target target = new Target();
+        services.inject(target);
+
+        assertNotNull(target.prototypes);
+        assertEquals(0, provider.lazyDependentBuilds.get(), "injecting a provider must not build the bean");
+        assertNotSame(target.prototypes.get(), target.prototypes.get());
+        assertNotNull(target.dependent.get());
+        assertEquals(1, provider.lazyDependentBuilds.get());
+    }
+
+    static class LazyBean {}
+    static class PrototypeBean {}
+    static class ThreadBean {}
+    static class LazyDependent {}
+    static class InjectedPrototype {}
+
+    static class LazyProvider {
+        final AtomicInteger lazyBuilds = new AtomicInteger();
+
+        @ServiceManager.ServiceBean(value = "lazy", lazy = true)
+        LazyBean lazy() {
+            lazyBuilds.incrementAndGet();
+            return new LazyBean();
+        }
+    }
+
+    static class ScopedProvider {
+        @ServiceManager.ServiceBean(scope = ServiceManager.Scope.PROTOTYPE)
+        PrototypeBean prototype() { return new PrototypeBean(); }
+
+        @ServiceManager.ServiceBean(scope = ServiceManager.Scope.THREAD)
+        ThreadBean perThread() { return new ThreadBean(); }
+    }
+
+    static class DependentProvider {
+        final AtomicInteger lazyDependentBuilds = new AtomicInteger();
+
+        @ServiceManager.ServiceBean(scope = ServiceManager.Scope.PROTOTYPE)
+        InjectedPrototype prototype() { return new InjectedPrototype(); }
+
+        @ServiceManager.ServiceBean(lazy = true)
+        LazyDependent lazyDependent(InjectedPrototype prototype) {
+            lazyDependentBuilds.incrementAndGet();
+            return new LazyDependent();
+        }
+    }
+
+    static class Target {
+        @ServiceManager.InjectService
+        ServiceManager.Provider<InjectedPrototype> prototypes;
+
+        @ServiceManager.InjectService
+        java.util.function.Supplier<LazyDependent> dependent;
+    }
+}
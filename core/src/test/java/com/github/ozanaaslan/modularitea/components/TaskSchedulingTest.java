@@ -0,0 +1,258 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives TaskManager by hand: a manual clock, a backend firing triggers only when the clock is
+ * advanced, and task bodies that "take" time by moving the clock forward.
+ */
+class TaskSchedulingTest {
+
+    private long now;
+    private final ManualBackend backend = new ManualBackend();
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private TaskManager tasks = new TaskManager(backend, () -> now, Runnable::run);
+
+    @AfterEach
+    void tearDown() {
+        tasks.stopAll(0, MILLISECONDS);
+    }
+
+    @Test
+    void fixedRateCatchesUpOnTheGrid() {
+        FixedRate task = new FixedRate(250, 10);
+        tasks.register(task);
+        backend.advanceTo(450);
+
+        assertEquals(Arrays.asList(0L, 250L, 260L, 300L, 400L), task.starts);
+        TaskManager.TaskMetrics metrics = tasks.getTaskMetrics().get(0);
+        assertEquals(5, metrics.getRunCount());
+        assertEquals(1, metrics.getOverrunCount());
+        assertEquals(0, metrics.getSkippedCount());
+    }
+
+    @Test
+    void fixedDelayWaitsAnIntervalAfterEachRun() {
+        FixedDelay task = new FixedDelay(250, 10);
+        tasks.register(task);
+        backend.advanceTo(600);
+
+        assertEquals(Arrays.asList(0L, 350L, 460L, 570L), task.starts);
+    }
+
+    @Test
+    void coalesceCollapsesMissedRunsIntoOne() {
+        Coalesce task = new Coalesce(350, 10);
+        tasks.register(task);
+        backend.advanceTo(600);
+
+        // Slots 100, 200 and 300 were missed: one run at 350 for all of them, then an interval from there
+        assertEquals(Arrays.asList(0L, 350L, 450L, 550L), task.starts);
+        assertEquals(2, tasks.getTaskMetrics().get(0).getSkippedCount());
+    }
+
+    @Test
+    void skipIfRunningDropsSlotsWhileARunIsInProgress() {
+        tasks = new TaskManager(backend, () -> now, pending::add);
+        SkipIfRunning task = new SkipIfRunning(0);
+        tasks.register(task);
+
+        backend.advanceTo(250); // Slot 0 queued, 100 and 200 find it still running
+        assertEquals(1, pending.size());
+        pending.poll().run();
+        backend.advanceTo(300);
+        pending.poll().run();
+
+        assertEquals(Arrays.asList(250L, 300L), task.starts);
+        assertEquals(2, tasks.getTaskMetrics().get(0).getSkippedCount());
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    void skipIfRunningSkipsSlotsAlreadyInThePast() {
+        SkipIfRunning task = new SkipIfRunning(0);
+        tasks.register(task);
+        backend.advanceTo(0);
+
+        now = 330; // The timer fires late, e.g. after a pause
+        backend.advanceTo(330);
+
+        assertEquals(Arrays.asList(0L, 330L), task.starts);
+        assertEquals(2, tasks.getTaskMetrics().get(0).getSkippedCount()); // Slots 200 and 300
+        backend.advanceTo(399);
+        assertEquals(2, task.starts.size());
+        backend.advanceTo(400);
+        assertEquals(3, task.starts.size());
+    }
+
+    @Test
+    void backoffStretchesTheIntervalWhileTheTaskKeepsFailing() {
+        BackingOff task = new BackingOff(5);
+        tasks.register(task);
+        backend.advanceTo(1300);
+
+        // Third failure: +1 interval, then +2 and +4; the success at 1200 resets it
+        assertEquals(Arrays.asList(0L, 100L, 200L, 400L, 700L, 1200L, 1300L), task.starts);
+        assertEquals(5, tasks.getTaskMetrics().get(0).getFailureCount());
+        assertEquals(0, tasks.getTaskMetrics().get(0).getConsecutiveFailures());
+    }
+
+    @Test
+    void failingTasksKeepTheirIntervalWithoutBackoff() {
+        Failing task = new Failing(5);
+        tasks.register(task);
+        backend.advanceTo(600);
+
+        assertEquals(Arrays.asList(0L, 100L, 200L, 300L, 400L, 500L, 600L), task.starts);
+    }
+
+    @Test
+    void spreadOffsetsTasksSharingAnInterval() {
+        Spread first = new Spread(), second = new Spread(), third = new Spread();
+        Plain plain = new Plain();
+        tasks.register(first);
+        tasks.register(second);
+        tasks.register(third);
+        tasks.register(plain);
+        backend.advanceTo(TimeUnit.SECONDS.toNanos(1) - 1);
+
+        // Golden-ratio phases over the 1s interval; a task that doesn't ask keeps its delay
+        assertEquals(Collections.singletonList(0L), first.starts);
+        assertEquals(Collections.singletonList(618_033_988L), second.starts);
+        assertEquals(Collections.singletonList(236_067_977L), third.starts);
+        assertEquals(Collections.singletonList(0L), plain.starts);
+    }
+
+    /**
+     * Records the clock at the start of each run, then moves it on by the run's duration (the last
+     * one repeats) and fails the first 'failures' runs.
+     */
+    abstract class Probe {
+        final List<Long> starts = new ArrayList<>();
+        private final long[] durations;
+        private final int failures;
+
+        Probe(int failures, long... durations) {
+            this.failures = failures;
+            this.durations = durations.length == 0 ? new long[]{0} : durations;
+        }
+
+        void run() {
+            int index = starts.size();
+            starts.add(now);
+            now += durations[Math.min(index, durations.length - 1)];
+            if (index < failures) throw new IllegalStateException("run " + index);
+        }
+    }
+
+    class FixedRate extends Probe {
+        FixedRate(long... durations) { super(0, durations); }
+
+        @TaskManager.Task(interval = 100, unit = NANOSECONDS)
+        void tick() { run(); }
+    }
+
+    class FixedDelay extends Probe {
+        FixedDelay(long... durations) { super(0, durations); }
+
+        @TaskManager.Task(interval = 100, unit = NANOSECONDS, overrun = TaskManager.OverrunPolicy.FIXED_DELAY)
+        void tick() { run(); }
+    }
+
+    class Coalesce extends Probe {
+        Coalesce(long... durations) { super(0, durations); }
+
+        @TaskManager.Task(interval = 100, unit = NANOSECONDS, overrun = TaskManager.OverrunPolicy.COALESCE)
+        void tick() { run(); }
+    }
+
+    class SkipIfRunning extends Probe {
+        SkipIfRunning(long... durations) { super(0, durations); }
+
+        @TaskManager.Task(interval = 100, unit = NANOSECONDS, overrun = TaskManager.OverrunPolicy.SKIP_IF_RUNNING)
+        void tick() { run(); }
+    }
+
+    class BackingOff extends Probe {
+        BackingOff(int failures) { super(failures); }
+
+        @TaskManager.Task(interval = 100, unit = NANOSECONDS, backoff = true)
+        void tick() { run(); }
+    }
+
+    class Failing extends Probe {
+        Failing(int failures) { super(failures); }
+
+        @TaskManager.Task(interval = 100, unit = NANOSECONDS)
+        void tick() { run(); }
+    }
+
+    class Spread extends Probe {
+        Spread() { super(0); }
+
+        @TaskManager.Task(interval = 1, spread = true)
+        void tick() { run(); }
+    }
+
+    class Plain extends Probe {
+        Plain() { super(0); }
+
+        @TaskManager.Task(interval = 1)
+        void tick() { run(); }
+    }
+
+    /**
+     * Fires triggers in due order as the test advances the clock; a trigger fires no earlier than
+     * its due time, and at the current time if the clock is already past it.
+     */
+    private final class ManualBackend implements TaskManager.SchedulerBackend {
+        private final List<Timer> timers = new ArrayList<>();
+
+        @Override
+        public TaskManager.TimerHandle schedule(Runnable trigger, long delay, TimeUnit unit) {
+            Timer timer = new Timer(now + unit.toNanos(delay), trigger);
+            timers.add(timer);
+            return () -> timers.remove(timer);
+        }
+
+        @Override
+        public void shutdown() {
+            timers.clear();
+        }
+
+        void advanceTo(long target) {
+            while (true) {
+                Timer next = null;
+                for (Timer timer : timers) if (timer.due <= target && (next == null || timer.due < next.due)) next = timer;
+                if (next == null) break;
+                timers.remove(next);
+                now = Math.max(now, next.due);
+                next.trigger.run();
+            }
+            now = Math.max(now, target);
+        }
+    }
+
+    private static final class Timer {
+        final long due;
+        final Runnable trigger;
+
+        Timer(long due, Runnable trigger) {
+            this.due = due;
+            this.trigger = trigger;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.ozanaaslan.modularitea.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickLoopTest {
+
+    private TickLoop loop;
+
+    @AfterEach
+    void tearDown() {
+        if (loop != null) loop.stop(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void spillsWorkOverBudgetIntoLaterTicks() throws Exception {
+        // Each task takes at least 4ms and a tick may start tasks for 10ms: at most 3 per tick
+        loop = new TickLoop(20, 10, TimeUnit.MILLISECONDS);
+        int count = 12;
+        List<Long> tickOfTask = new ArrayList<>(); // Only touched on the tick thread
+        CountDownLatch done = new CountDownLatch(count);
+
+        loop.submit(() -> {
+            for (int i = 0; i < count; i++) {
+                loop.execute(() -> {
+                    tickOfTask.add(loop.getTickCount());
+                    sleep(4);
+                    done.countDown();
+                });
+            }
+            return null;
+        }).get(5, TimeUnit.SECONDS);
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        Map<Long, Integer> perTick = new HashMap<>();
+        for (long tick : loop.submit(() -> new ArrayList<>(tickOfTask)).get(5, TimeUnit.SECONDS)) perTick.merge(tick, 1, Integer::sum);
+        assertTrue(perTick.size() >= 4, perTick.toString());
+        for (int tasks : perTick.values()) assertTrue(tasks <= 3, perTick.toString());
+        assertTrue(loop.getBudgetExceededCount() >= 3, "budget exceeded " + loop.getBudgetExceededCount());
+        assertEquals(0, loop.getBacklog());
+    }
+
+    @Test
+    void keepsEachSubmittersOrder() throws Exception {
+        loop = new TickLoop(1, 1, TimeUnit.MILLISECONDS);
+        int producers = 4, perProducer = 2_000;
+        List<int[]> ran = new ArrayList<>(); // Only touched on the tick thread
+        AtomicInteger offTickThread = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    int sequence = i;
+                    loop.execute(() -> {
+                        if (!loop.isTickThread()) offTickThread.incrementAndGet();
+                        ran.add(new int[]{producer, sequence});
+                    });
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) thread.join();
+        List<int[]> order = loop.submit(() -> new ArrayList<>(ran)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(producers * perProducer, order.size());
+        assertEquals(0, offTickThread.get());
+        int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        for (int[] task : order) {
+            assertEquals(last[task[0]] + 1, task[1], "producer " + task[0] + " out of order");
+            last[task[0]] = task[1];
+        }
+    }
+
+    @Test
+    void recordsTickDurationsAndOnlyCountsTicksLeftWithWork() throws Exception {
+        loop = new TickLoop(10, 8, TimeUnit.MILLISECONDS);
+        waitForTicks(5);
+        assertEquals(0, loop.getBudgetExceededCount());
+        assertTrue(loop.getTickDurations().getTotalCount() >= 4); // The duration is recorded after the count
+
+        // One task longer than the tick: the tick's duration includes it, and nothing was left queued
+        loop.submit(() -> { sleep(30); return null; }).get(5, TimeUnit.SECONDS);
+        waitForTicks(loop.getTickCount() + 2);
+        assertTrue(loop.getTickDurations().getMax() >= TimeUnit.MILLISECONDS.toNanos(30), "max " + loop.getTickDurations().getMax());
+        assertEquals(0, loop.getBudgetExceededCount());
+    }
+
+    @Test
+    void stopRunsWhatIsQueuedAndRejectsNewWork() throws Exception {
+        loop = new TickLoop(1, 1, TimeUnit.SECONDS);
+        waitForTicks(1); // Parked until the next tick, a second away
+        AtomicInteger ran = new AtomicInteger();
+        for (int i = 0; i < 10; i++) loop.execute(ran::incrementAndGet);
+
+        assertTrue(loop.stop(5, TimeUnit.SECONDS));
+        assertEquals(10, ran.get());
+        assertThrows(RejectedExecutionException.class, () -> loop.execute(ran::incrementAndGet));
+    }
+
+    private void waitForTicks(long ticks) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loop.getTickCount() < ticks && System.nanoTime() < deadline) Thread.sleep(1);
+        assertTrue(loop.getTickCount() >= ticks, "ticks " + loop.getTickCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}